@@ -0,0 +1,90 @@
+package net.matthiasauer.stwp4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.matthiasauer.stwp4j.Channel;
+import net.matthiasauer.stwp4j.ChannelInPort;
+import net.matthiasauer.stwp4j.ChannelOutPort;
+import net.matthiasauer.stwp4j.LightweightProcess;
+import net.matthiasauer.stwp4j.Scheduler;
+
+/**
+ * latency of an iteration in which a single message is relayed through a
+ * chain of processes - which needs one sub-iteration per link
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+    @Param({ "10", "100" })
+    public int length;
+
+    // whether the relays are registered with their ports, so that they are
+    // only executed if they received a message
+    @Param({ "false", "true" })
+    public boolean dataDriven;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.scheduler = new Scheduler();
+        Channel<String> channel = this.scheduler.createMultiplexChannel("link0", String.class, true, false);
+        final ChannelOutPort<String> sourceOutPort = channel.createOutPort();
+
+        this.scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                sourceOutPort.offer("token");
+            }
+
+            @Override
+            protected void execute() {
+            }
+        }, sourceOutPort);
+
+        for (int i = 1; i <= this.length; i++) {
+            final ChannelInPort<String> inPort = channel.createInPort();
+            channel = this.scheduler.createMultiplexChannel("link" + i, String.class, true, true);
+            final ChannelOutPort<String> outPort = channel.createOutPort();
+            final LightweightProcess relay = new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    String received = null;
+
+                    while ((received = inPort.poll()) != null) {
+                        blackhole.consume(received);
+                        outPort.offer(received);
+                    }
+                }
+            };
+
+            if (this.dataDriven) {
+                this.scheduler.addProcess(relay, inPort, outPort);
+            } else {
+                this.scheduler.addProcess(relay);
+            }
+        }
+    }
+
+    @Benchmark
+    public void performIteration() {
+        this.scheduler.performIteration();
+    }
+}
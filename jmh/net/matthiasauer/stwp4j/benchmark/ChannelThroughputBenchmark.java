@@ -0,0 +1,82 @@
+package net.matthiasauer.stwp4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.matthiasauer.stwp4j.Channel;
+import net.matthiasauer.stwp4j.ChannelInPort;
+import net.matthiasauer.stwp4j.ChannelOutPort;
+import net.matthiasauer.stwp4j.LightweightProcess;
+import net.matthiasauer.stwp4j.Scheduler;
+
+/**
+ * messages per second through a single channel with one producer and
+ * one consumer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelThroughputBenchmark {
+    private static final int MESSAGES = 10000;
+
+    @Param({ "Shared", "Multiplex" })
+    public String inputPortType;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.scheduler = new Scheduler();
+        final Channel<Integer> channel = "Shared".equals(this.inputPortType)
+                ? this.scheduler.createSharedChannel("channel", Integer.class, true, false)
+                : this.scheduler.createMultiplexChannel("channel", Integer.class, true, false);
+        final ChannelOutPort<Integer> outPort = channel.createOutPort();
+        final ChannelInPort<Integer> inPort = channel.createInPort();
+        final Integer message = Integer.valueOf(42);
+
+        this.scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                for (int i = 0; i < MESSAGES; i++) {
+                    outPort.offer(message);
+                }
+            }
+
+            @Override
+            protected void execute() {
+            }
+        }, outPort);
+        this.scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                Integer received = null;
+
+                while ((received = inPort.poll()) != null) {
+                    blackhole.consume(received);
+                }
+            }
+        }, inPort);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void forwardMessages() {
+        this.scheduler.performIteration();
+    }
+}
@@ -0,0 +1,88 @@
+package net.matthiasauer.stwp4j.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.matthiasauer.stwp4j.Channel;
+import net.matthiasauer.stwp4j.ChannelInPort;
+import net.matthiasauer.stwp4j.ChannelOutPort;
+import net.matthiasauer.stwp4j.LightweightProcess;
+import net.matthiasauer.stwp4j.Scheduler;
+
+/**
+ * latency of an iteration in which a single producer sends a message to
+ * one of many consumers - a frozen scheduler only visits the woken up
+ * consumers, otherwise all of them are asked whether they are due
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrozenSchedulerBenchmark {
+    @Param({ "100", "1000", "10000" })
+    public int consumers;
+
+    @Param({ "false", "true" })
+    public boolean frozen;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.scheduler = new Scheduler();
+        final List<ChannelOutPort<String>> outPorts = new ArrayList<ChannelOutPort<String>>();
+
+        for (int i = 0; i < this.consumers; i++) {
+            final Channel<String> channel = this.scheduler.createSharedChannel("channel" + i, String.class, true,
+                    false);
+            final ChannelInPort<String> inPort = channel.createInPort();
+            outPorts.add(channel.createOutPort());
+
+            this.scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    blackhole.consume(inPort.poll());
+                }
+            }, inPort);
+        }
+
+        this.scheduler.addProcess(new LightweightProcess() {
+            private int next = 0;
+
+            @Override
+            protected void preIteration() {
+                outPorts.get(this.next).offer("message");
+                this.next = (this.next + 1) % outPorts.size();
+            }
+
+            @Override
+            protected void execute() {
+            }
+        }, outPorts.toArray(new ChannelOutPort<?>[outPorts.size()]));
+
+        if (this.frozen) {
+            this.scheduler.freeze();
+        }
+    }
+
+    @Benchmark
+    public void performIteration() {
+        this.scheduler.performIteration();
+    }
+}
@@ -0,0 +1,83 @@
+package net.matthiasauer.stwp4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.matthiasauer.stwp4j.Channel;
+import net.matthiasauer.stwp4j.ChannelInPort;
+import net.matthiasauer.stwp4j.ChannelOutPort;
+import net.matthiasauer.stwp4j.LightweightProcess;
+import net.matthiasauer.stwp4j.Scheduler;
+
+/**
+ * messages per second published to a multiplex channel with a growing
+ * number of InPorts
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiplexFanOutBenchmark {
+    private static final int MESSAGES = 1000;
+
+    @Param({ "1", "10", "50" })
+    public int inPorts;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.scheduler = new Scheduler();
+        final Channel<String> channel = this.scheduler.createMultiplexChannel("broadcast", String.class, true, false);
+        final ChannelOutPort<String> outPort = channel.createOutPort();
+
+        this.scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                for (int i = 0; i < MESSAGES; i++) {
+                    outPort.offer("event");
+                }
+            }
+
+            @Override
+            protected void execute() {
+            }
+        }, outPort);
+
+        for (int i = 0; i < this.inPorts; i++) {
+            final ChannelInPort<String> inPort = channel.createInPort();
+
+            this.scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    String received = null;
+
+                    while ((received = inPort.poll()) != null) {
+                        blackhole.consume(received);
+                    }
+                }
+            }, inPort);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void publish() {
+        this.scheduler.performIteration();
+    }
+}
@@ -0,0 +1,73 @@
+package net.matthiasauer.stwp4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.matthiasauer.stwp4j.Channel;
+import net.matthiasauer.stwp4j.ChannelInPort;
+import net.matthiasauer.stwp4j.ChannelOutPort;
+import net.matthiasauer.stwp4j.LightweightProcess;
+import net.matthiasauer.stwp4j.Scheduler;
+
+/**
+ * latency of an iteration with a growing number of producer / consumer
+ * pairs, each pair exchanges a single message per iteration
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessCountBenchmark {
+    @Param({ "10", "100", "1000" })
+    public int pairs;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.scheduler = new Scheduler();
+
+        for (int i = 0; i < this.pairs; i++) {
+            final Channel<String> channel = this.scheduler.createMultiplexChannel("channel" + i, String.class, true,
+                    false);
+            final ChannelOutPort<String> outPort = channel.createOutPort();
+            final ChannelInPort<String> inPort = channel.createInPort();
+
+            this.scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void preIteration() {
+                    outPort.offer("message");
+                }
+
+                @Override
+                protected void execute() {
+                }
+            });
+            this.scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    blackhole.consume(inPort.poll());
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public void performIteration() {
+        this.scheduler.performIteration();
+    }
+}
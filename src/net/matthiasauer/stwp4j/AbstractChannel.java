@@ -0,0 +1,387 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the message type independent part of a channel - A is the type of the
+ * arrays in which the ports store their messages
+ */
+public abstract class AbstractChannel<A, I extends ChannelPort<?>, O extends ChannelPort<?>> {
+    private final InputPortType inputType;
+    // lists instead of sets - the ports are iterated on each forwarding
+    // and have to be visited in a deterministic order
+    private final List<I> inPorts;
+    private final List<O> outPorts;
+    private final String id;
+    private final boolean mustBeEmptyAfterEachIteration;
+    private final boolean allowMessagesWithoutHavingInPorts;
+    // collects the messages of the OutPorts - reused for each forwarding,
+    // created on the first one (subclasses might not be initialized yet
+    // within the constructor)
+    private RingBuffer<A> messages = null;
+    private RingBuffer<A> sharedInPortMessages = null;
+    private BroadcastLog<A> broadcastLog = null;
+    private WorkStealingDeques<A> workStealingDeques = null;
+    private final ChannelCapacity capacity;
+    private boolean producersUnblocked = false;
+    private ChannelMetrics metrics = null;
+    private Scheduler scheduler = null;
+    // OutPorts that have been offered to since the last forwarding -
+    // guarded by this
+    private List<ChannelPort<?>> dirtyOutPorts = new ArrayList<ChannelPort<?>>();
+    private List<ChannelPort<?>> forwardedOutPorts = new ArrayList<ChannelPort<?>>();
+    private boolean dirty = false;
+    // whether messages have been delivered since the last emptiness check
+    private boolean delivered = false;
+
+    AbstractChannel(InputPortType inputType, String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        this(inputType, id, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, null);
+    }
+
+    AbstractChannel(InputPortType inputType, String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity) {
+        this.allowMessagesWithoutHavingInPorts = allowMessagesWithoutHavingInPorts;
+        this.mustBeEmptyAfterEachIteration = mustBeEmptyAfterEachIteration;
+        this.inputType = inputType;
+        this.id = id;
+        this.inPorts = new ArrayList<I>();
+        this.outPorts = new ArrayList<O>();
+        this.capacity = capacity;
+    }
+
+    abstract Class<?> getMessageType();
+
+    abstract RingBuffer<A> newBuffer();
+
+    // the capacity is null for unbounded channels
+    abstract O newOutPort(RingBuffer<A> buffer, ChannelCapacity capacity);
+
+    abstract I newInPort(RingBuffer<A> buffer, boolean shared);
+
+    String getId() {
+        return this.id;
+    }
+
+    List<I> getInPorts() {
+        return this.inPorts;
+    }
+
+    void setMetrics(ChannelMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    // called when the scheduler is frozen - the ports can't change anymore
+    void validate() {
+        if (!this.allowMessagesWithoutHavingInPorts && this.inPorts.isEmpty() && !this.outPorts.isEmpty()) {
+            throw new IllegalStateException("channel '" + this.id + "' (of type " + this.getMessageType()
+                    + ") has OutPorts but no InPorts !");
+        }
+    }
+
+    private void checkNotFrozen() {
+        if (this.scheduler != null) {
+            this.scheduler.checkNotFrozen();
+        }
+    }
+
+    // called by the OutPorts on their first offer after a forwarding
+    synchronized void markDirty(ChannelPort<?> outPort) {
+        this.dirtyOutPorts.add(outPort);
+        this.markDirty();
+    }
+
+    private synchronized void markDirty() {
+        if (!this.dirty) {
+            this.dirty = true;
+
+            if (this.scheduler != null) {
+                this.scheduler.markDirty(this);
+            }
+        }
+    }
+
+    private synchronized List<ChannelPort<?>> takeDirtyOutPorts() {
+        final List<ChannelPort<?>> dirtyOutPorts = this.dirtyOutPorts;
+
+        this.dirtyOutPorts = this.forwardedOutPorts;
+        this.forwardedOutPorts = dirtyOutPorts;
+        this.dirty = false;
+
+        return dirtyOutPorts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RingBuffer<A> bufferOf(ChannelPort<?> port) {
+        return (RingBuffer<A>) port.getBuffer();
+    }
+
+    public O createOutPort() {
+        this.checkNotFrozen();
+
+        O outPort = this.newOutPort(this.newBuffer(), this.capacity);
+        outPort.setChannel(this);
+
+        this.outPorts.add(outPort);
+
+        return outPort;
+    }
+
+    // the capacity is null for unbounded channels
+    ChannelCapacity getCapacity() {
+        return this.capacity;
+    }
+
+    public I createInPort() {
+        this.checkNotFrozen();
+
+        switch (this.inputType) {
+        case Multiplex:
+            return this.createMultiplexInPort();
+        case Shared:
+            return this.createSharedInPort();
+        case WorkStealing:
+            return this.createWorkStealingInPort();
+        case Partitioned:
+            return this.createPartitionedInPort();
+        default:
+            throw new NullPointerException("Unknown InputPortType : " + this.inputType);
+        }
+    }
+
+    private I createMultiplexInPort() {
+        if (this.broadcastLog == null) {
+            this.broadcastLog = new BroadcastLog<A>(this.newBuffer());
+        }
+
+        // the buffer of the InPort is only a view of the messages stored
+        // in the broadcast log
+        I inPort = this.newInPort(this.newBuffer(), false);
+        inPort.setChannel(this);
+        this.broadcastLog.addReader(this.bufferOf(inPort));
+
+        this.inPorts.add(inPort);
+
+        return inPort;
+    }
+
+    private I createSharedInPort() {
+        if (this.sharedInPortMessages == null) {
+            this.sharedInPortMessages = this.newBuffer();
+        }
+
+        // all shared InPorts poll from the same buffer
+        I inPort = this.newInPort(this.sharedInPortMessages, true);
+        inPort.setChannel(this);
+
+        this.inPorts.add(inPort);
+
+        return inPort;
+    }
+
+    private I createWorkStealingInPort() {
+        if (this.workStealingDeques == null) {
+            this.workStealingDeques = new WorkStealingDeques<A>();
+        }
+
+        // the buffer is shared with the InPorts stealing from it
+        RingBuffer<A> buffer = this.newBuffer();
+        I inPort = this.newInPort(buffer, true);
+        inPort.setChannel(this);
+        inPort.setWorkStealingDeques(this.workStealingDeques, this.workStealingDeques.add(buffer));
+
+        this.inPorts.add(inPort);
+
+        return inPort;
+    }
+
+    private I createPartitionedInPort() {
+        // only the owner reads the messages routed to the InPort
+        I inPort = this.newInPort(this.newBuffer(), false);
+        inPort.setChannel(this);
+
+        this.inPorts.add(inPort);
+
+        return inPort;
+    }
+
+    private void distributeMessagesMultiplex(RingBuffer<A> messages) {
+        if (this.inPorts.isEmpty()) {
+            // nothing to do !
+            return;
+        }
+
+        // the messages are stored once, regardless of the number of InPorts
+        this.broadcastLog.publish(messages);
+    }
+
+    private void distributeMessagesShared(RingBuffer<A> messages) {
+        if (this.inPorts.isEmpty()) {
+            // nothing to do !
+            return;
+        }
+
+        messages.drainTo(this.sharedInPortMessages);
+        this.conflate(this.sharedInPortMessages);
+    }
+
+    // called with all messages waiting in the shared InPorts after each
+    // distribution
+    void conflate(RingBuffer<A> messages) {
+    }
+
+    private void distributeMessagesWorkStealing(RingBuffer<A> messages) {
+        if (this.inPorts.isEmpty()) {
+            // nothing to do !
+            return;
+        }
+
+        this.workStealingDeques.distribute(messages);
+    }
+
+    // copies each message to the buffer of the InPort it belongs to
+    void distributeMessagesPartitioned(RingBuffer<A> messages, List<I> inPorts) {
+        throw new IllegalStateException("channel '" + this.id + "' (of type " + this.getMessageType()
+                + ") can't be partitioned");
+    }
+
+    // only called for channels that have been marked dirty
+    int forwardMessages() {
+        // get all messages - as long as only a single OutPort has messages
+        // this only swaps buffers
+        if (this.messages == null) {
+            this.messages = this.newBuffer();
+        }
+
+        final RingBuffer<A> messages = this.messages;
+        final List<ChannelPort<?>> dirtyOutPorts = this.takeDirtyOutPorts();
+        for (int i = 0; i < dirtyOutPorts.size(); i++) {
+            final ChannelPort<?> outPort = dirtyOutPorts.get(i);
+
+            outPort.clean();
+            outPort.collectMessages();
+            this.bufferOf(outPort).drainTo(messages);
+        }
+        dirtyOutPorts.clear();
+
+        final int forwardedMessages = messages.size();
+
+        this.messagesForwarded(messages);
+
+        // distribute the messages
+        switch (this.inputType) {
+        case Multiplex:
+            this.distributeMessagesMultiplex(messages);
+            break;
+        case Shared:
+            this.distributeMessagesShared(messages);
+            break;
+        case WorkStealing:
+            this.distributeMessagesWorkStealing(messages);
+            break;
+        case Partitioned:
+            if (!this.inPorts.isEmpty()) {
+                this.distributeMessagesPartitioned(messages, this.inPorts);
+            }
+            break;
+        default:
+            throw new NullPointerException("Unknown InputPortType : " + this.inputType);
+        }
+
+        // only left over if there are no InPorts
+        messages.clear();
+
+        if ((forwardedMessages != 0) && this.mustBeEmptyAfterEachIteration && !this.delivered) {
+            // only these channels have to be checked at the end of the
+            // iteration
+            this.delivered = true;
+
+            if (this.scheduler != null) {
+                this.scheduler.markDelivered(this);
+            }
+        }
+
+        if (forwardedMessages != 0) {
+            // wake up the processes waiting for the messages - partitioned
+            // InPorts only if any messages were routed to them
+            for (int i = 0; i < this.inPorts.size(); i++) {
+                final I inPort = this.inPorts.get(i);
+
+                if ((this.inputType != InputPortType.Partitioned) || inPort.hasMessages()) {
+                    inPort.wakeUpOwner();
+                }
+            }
+        }
+
+        if (!this.allowMessagesWithoutHavingInPorts) {
+            if (this.inPorts.isEmpty() && (forwardedMessages != 0)) {
+                throw new IllegalStateException("channel '" + this.id + "' has messages (of type "
+                        + this.getMessageType() + ") to forward but no InPorts !");
+            }
+        }
+
+        if (this.capacity != null) {
+            this.producersUnblocked = this.capacity.release(forwardedMessages, this.getBacklog());
+
+            // the permits have to be recalculated until the blocked OutPorts
+            // can continue
+            if (this.capacity.hasBlockedPorts()) {
+                this.markDirty();
+            }
+        }
+
+        if (this.metrics != null) {
+            this.metrics.recordForwarding(forwardedMessages, this.getBacklog());
+        }
+
+        return forwardedMessages;
+    }
+
+    // called with the messages of each forwarding before they are
+    // distributed to the InPorts
+    void messagesForwarded(RingBuffer<A> messages) {
+    }
+
+    // the number of messages the channel still holds - the InPorts of a
+    // Multiplex channel see the same messages and those of a Shared channel
+    // the same buffer, work-stealing and partitioned InPorts each hold their
+    // own part
+    int getBacklog() {
+        final boolean disjoint = (this.inputType == InputPortType.WorkStealing)
+                || (this.inputType == InputPortType.Partitioned);
+        int backlog = 0;
+
+        for (int i = 0; i < this.inPorts.size(); i++) {
+            final int size = this.bufferOf(this.inPorts.get(i)).size();
+
+            backlog = disjoint ? (backlog + size) : Math.max(backlog, size);
+        }
+
+        return backlog;
+    }
+
+    // whether the last forwarding gave blocked OutPorts room for messages
+    boolean hasUnblockedProducers() {
+        return this.producersUnblocked;
+    }
+
+    void resetDelivered() {
+        this.delivered = false;
+    }
+
+    void performPostIterationCheck() {
+        if (this.mustBeEmptyAfterEachIteration) {
+            for (int i = 0; i < this.inPorts.size(); i++) {
+                if (this.inPorts.get(i).hasMessages()) {
+                    throw new IllegalStateException("channel '" + this.getId() + "' (of type " + this.getMessageType()
+                            + ") was NOT empty at the end of the iteration - this channel has to be empty !");
+                }
+            }
+        }
+    }
+}
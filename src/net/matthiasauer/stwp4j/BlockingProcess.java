@@ -0,0 +1,132 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * process whose work may block - prepare and complete are executed by the
+ * scheduler like execute and may use the ports, performBlocking is executed
+ * on the executor in between and must not use them. While the blocking work
+ * is in progress the scheduler continues with its (sub-)iterations
+ */
+public abstract class BlockingProcess extends LightweightProcess {
+    private static ExecutorService defaultExecutor = null;
+    private final Executor executor;
+    // only accessed by the scheduler
+    private boolean pending = false;
+    private volatile boolean done = false;
+    private volatile Throwable failure = null;
+    private final Runnable work = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                BlockingProcess.this.performBlocking();
+            } catch (Throwable throwable) {
+                BlockingProcess.this.failure = throwable;
+            } finally {
+                BlockingProcess.this.done = true;
+            }
+        }
+    };
+
+    /**
+     * the blocking work is executed on a shared pool of daemon threads
+     */
+    protected BlockingProcess() {
+        this(getDefaultExecutor());
+    }
+
+    /**
+     * the blocking work is executed on the given executor - e.g. an
+     * executor creating a virtual thread per task
+     */
+    protected BlockingProcess(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+
+        this.executor = executor;
+    }
+
+    private static synchronized ExecutorService getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            final AtomicInteger threads = new AtomicInteger();
+
+            defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "stwp4j-blocking-" + threads.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return defaultExecutor;
+    }
+
+    /**
+     * executed by the scheduler if no blocking work is in progress - reads
+     * the InPorts and returns true to start performBlocking
+     */
+    protected abstract boolean prepare();
+
+    /**
+     * executed on the executor, must not use any ports
+     */
+    protected abstract void performBlocking() throws Exception;
+
+    /**
+     * executed by the scheduler once performBlocking has finished - offers
+     * the results to the OutPorts
+     */
+    protected abstract void complete();
+
+    @Override
+    protected final void execute() {
+        if (this.pending) {
+            if (!this.done) {
+                // still blocked - try again in the next sub-iteration
+                return;
+            }
+
+            this.pending = false;
+            this.rethrowFailure();
+            this.complete();
+        }
+
+        if (this.prepare()) {
+            this.pending = true;
+            this.done = false;
+            this.executor.execute(this.work);
+        }
+    }
+
+    private void rethrowFailure() {
+        final Throwable failure = this.failure;
+
+        if (failure == null) {
+            return;
+        }
+
+        this.failure = null;
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+
+        throw new IllegalStateException("blocking work of process failed, process : " + this, failure);
+    }
+
+    // executed until the blocking work has been completed
+    @Override
+    boolean isPending() {
+        return this.pending;
+    }
+}
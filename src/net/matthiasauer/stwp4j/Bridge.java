@@ -0,0 +1,45 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * connects a channel of one partition with a channel of another partition
+ * - the messages offered to the source are available in the target in the
+ * next iteration
+ */
+public final class Bridge<T> {
+    private final Channel<T> source;
+    private final Channel<T> target;
+    // neither of them belongs to a process
+    private final ChannelInPort<T> sourceInPort;
+    private final ChannelOutPort<T> targetOutPort;
+    private final List<T> transfer = new ArrayList<T>();
+
+    Bridge(Channel<T> source, Channel<T> target) {
+        this.source = source;
+        this.target = target;
+        this.sourceInPort = source.createInPort();
+        this.targetOutPort = target.createOutPort();
+    }
+
+    // create the OutPorts of the bridge on this channel
+    public Channel<T> getSource() {
+        return this.source;
+    }
+
+    // create the InPorts of the bridge on this channel
+    public Channel<T> getTarget() {
+        return this.target;
+    }
+
+    // only called while no partition is executing
+    void transferMessages() {
+        this.sourceInPort.drainTo(this.transfer);
+
+        if (!this.transfer.isEmpty()) {
+            this.targetOutPort.offerAll(this.transfer);
+            this.transfer.clear();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * stores the messages of a multiplex channel once for all of its InPorts -
+ * the buffer of each InPort is a view of the log whose head is the cursor
+ * of the InPort, messages are released once all cursors have passed them
+ */
+final class BroadcastLog<A> {
+    private final RingBuffer<A> log;
+    private final List<RingBuffer<A>> readers = new ArrayList<RingBuffer<A>>();
+    // the sequence number of the first message in the log
+    private long firstSequence = 0;
+
+    BroadcastLog(RingBuffer<A> log) {
+        this.log = log;
+    }
+
+    // the reader only sees messages published after it has been added
+    void addReader(RingBuffer<A> reader) {
+        reader.showRange(this.log, this.log.size(), 0);
+        this.readers.add(reader);
+    }
+
+    // only called while no InPort is read
+    void publish(RingBuffer<A> messages) {
+        final long endSequence = this.firstSequence + this.log.size();
+        long oldestUnread = endSequence;
+
+        for (int i = 0; i < this.readers.size(); i++) {
+            oldestUnread = Math.min(oldestUnread, endSequence - this.readers.get(i).size());
+        }
+
+        // all readers are done with the messages before the oldest unread
+        this.log.skip((int) (oldestUnread - this.firstSequence));
+        this.firstSequence = oldestUnread;
+
+        messages.drainTo(this.log);
+
+        // the log might have been grown or swapped
+        final long newEndSequence = this.firstSequence + this.log.size();
+
+        for (int i = 0; i < this.readers.size(); i++) {
+            final RingBuffer<A> reader = this.readers.get(i);
+            final long cursor = endSequence - reader.size();
+
+            reader.showRange(this.log, (int) (cursor - this.firstSequence), (int) (newEndSequence - cursor));
+        }
+    }
+}
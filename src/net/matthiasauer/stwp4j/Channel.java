@@ -1,140 +1,203 @@
-package net.matthiasauer.stwp4j;
-
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-import java.util.Set;
-
-public class Channel<T> {
-    public static enum ChannelMessageHandleType {
-        MustBeEmtpyAfterEachSubIteration,
-
-    }
-
-    private final InputPortType inputType;
-    private final Set<ChannelInPort<T>> inPorts;
-    private final Set<ChannelOutPort<T>> outPorts;
-    private final String id;
-    private final Class<T> messageType;
-    private final boolean mustBeEmptyAfterEachIteration;
-    private final boolean allowMessagesWithoutHavingInPorts;
-
-    Class<T> getMessageType() {
-        return this.messageType;
-    }
-
-    String getId() {
-        return this.id;
-    }
-
-    Channel(InputPortType inputType, String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
-        this.allowMessagesWithoutHavingInPorts = allowMessagesWithoutHavingInPorts;
-        this.mustBeEmptyAfterEachIteration = mustBeEmptyAfterEachIteration;
-        this.inputType = inputType;
-        this.id = id;
-        this.messageType = messageType;
-        this.inPorts = new HashSet<ChannelInPort<T>>();
-        this.outPorts = new HashSet<ChannelOutPort<T>>();
-    }
-
-    public ChannelOutPort<T> createOutPort() {
-        ChannelOutPort<T> outPort = new ChannelOutPort<T>(this.messageType);
-
-        this.outPorts.add(outPort);
-
-        return outPort;
-    }
-
-    public ChannelInPort<T> createInPort() {
-        switch (this.inputType) {
-        case Multiplex:
-            return this.createMultiplexInPort();
-        case Shared:
-            return this.createSharedInPort();
-        default:
-            throw new NullPointerException("Unknown InputPortType : " + this.inputType);
-        }
-    }
-
-    private ChannelInPort<T> createMultiplexInPort() {
-        ChannelInPort<T> inPort = new ChannelInPort<T>(this.messageType);
-
-        this.inPorts.add(inPort);
-
-        return inPort;
-    }
-
-    private ChannelInPort<T> createSharedInPort() {
-        ChannelInPort<T> inPort = null;
-
-        if (this.inPorts.isEmpty()) {
-            inPort = new ChannelInPort<T>(this.messageType);
-        } else {
-            ChannelInPort<T> alreadyExistingInPort = this.inPorts.iterator().next();
-            inPort = new ChannelInPort<T>(alreadyExistingInPort);
-        }
-
-        this.inPorts.add(inPort);
-
-        return inPort;
-    }
-
-    private void distributeMessagesMultiplex(Queue<T> messages) {
-        for (ChannelInPort<T> inPort : this.inPorts) {
-            inPort.messages.addAll(messages);
-        }
-    }
-
-    private void distributeMessagesShared(Queue<T> messages) {
-        if (this.inPorts.isEmpty()) {
-            // nothing to do !
-            return;
-        }
-
-        ChannelInPort<T> channelInPort = this.inPorts.iterator().next();
-        List<T> uniqueInPortMessageCollections = channelInPort.messages;
-
-        uniqueInPortMessageCollections.addAll(messages);
-    }
-
-    int forwardMessages() {
-        // get all messages
-        Queue<T> messages = new LinkedList<T>();
-        for (ChannelOutPort<T> outPort : this.outPorts) {
-            outPort.drainTo(messages);
-        }
-
-        // distribute the messages
-        switch (this.inputType) {
-        case Multiplex:
-            this.distributeMessagesMultiplex(messages);
-            break;
-        case Shared:
-            this.distributeMessagesShared(messages);
-            break;
-        default:
-            throw new NullPointerException("Unknown InputPortType : " + this.inputType);
-        }
-
-        if (!this.allowMessagesWithoutHavingInPorts) {
-            if (this.inPorts.isEmpty() && !messages.isEmpty()) {
-                throw new IllegalStateException("channel '" + this.id + "' has messages (of type " + this.messageType
-                        + ") to forward but no InPorts !");
-            }
-        }
-
-        return messages.size();
-    }
-
-    void performPostIterationCheck() {
-        if (this.mustBeEmptyAfterEachIteration) {
-            for (ChannelInPort<T> inPort : this.inPorts) {
-                if (inPort.peek() != null) {
-                    throw new IllegalStateException("channel '" + this.getId() + "' (of type " + this.getMessageType()
-                            + ") was NOT empty at the end of the iteration - this channel has to be empty !");
-                }
-            }
-        }
-    }
-}
+package net.matthiasauer.stwp4j;
+
+import java.util.List;
+
+public class Channel<T> extends AbstractChannel<Object[], ChannelInPort<T>, ChannelOutPort<T>> {
+    public static enum ChannelMessageHandleType {
+        MustBeEmtpyAfterEachSubIteration,
+
+    }
+
+    private final Class<T> messageType;
+    private final MessagePool<T> messagePool;
+    // the forwarded messages which haven't been returned to the pool yet -
+    // in the order in which they were forwarded
+    private final ObjectRingBuffer<T> inFlight;
+    private final KeyExtractor<? super T> keyExtractor;
+    private final boolean conflating;
+    // the keys seen while conflating - reused for each forwarding
+    private final KeySet conflatedKeys;
+    // the journal may be detached by another thread - the index and the
+    // codec are written before it and stay when it is detached
+    private volatile JournalRecorder journal = null;
+    private int journalIndex = 0;
+    private MessageCodec<T> journalCodec = null;
+
+    Class<T> getMessageType() {
+        return this.messageType;
+    }
+
+    Channel(InputPortType inputType, String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        this(inputType, id, messageType, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, null);
+    }
+
+    Channel(InputPortType inputType, String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity) {
+        this(inputType, id, messageType, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity,
+                null);
+    }
+
+    Channel(InputPortType inputType, String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity, MessagePool<T> messagePool) {
+        this(inputType, id, messageType, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity,
+                messagePool, null);
+    }
+
+    Channel(InputPortType inputType, String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity, MessagePool<T> messagePool,
+            KeyExtractor<? super T> keyExtractor) {
+        this(inputType, id, messageType, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity,
+                messagePool, keyExtractor, false);
+    }
+
+    Channel(InputPortType inputType, String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity, MessagePool<T> messagePool,
+            KeyExtractor<? super T> keyExtractor, boolean conflating) {
+        super(inputType, id, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity);
+        this.messageType = messageType;
+        this.messagePool = messagePool;
+        this.inFlight = (messagePool == null) ? null : new ObjectRingBuffer<T>();
+        this.keyExtractor = keyExtractor;
+        this.conflating = conflating;
+        this.conflatedKeys = (conflating && (keyExtractor != null)) ? new KeySet() : null;
+    }
+
+    // null if the channel doesn't pool its messages
+    public MessagePool<T> getMessagePool() {
+        return this.messagePool;
+    }
+
+    void setJournal(JournalRecorder journal, int journalIndex, MessageCodec<T> journalCodec) {
+        this.journalIndex = journalIndex;
+        this.journalCodec = journalCodec;
+        this.journal = journal;
+    }
+
+    void detachJournal() {
+        this.journal = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void messagesForwarded(RingBuffer<Object[]> messages) {
+        if (this.inFlight != null) {
+            this.inFlight.addAll(messages);
+        }
+
+        final JournalRecorder journal = this.journal;
+
+        if (journal != null) {
+            journal.recordMessages(this.journalIndex, this.journalCodec, (ObjectRingBuffer<T>) messages);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void distributeMessagesPartitioned(RingBuffer<Object[]> messages, List<ChannelInPort<T>> inPorts) {
+        final ObjectRingBuffer<T> forwarded = (ObjectRingBuffer<T>) messages;
+        final int partitions = inPorts.size();
+
+        // the messages keep their order within each InPort
+        for (int i = 0; i < forwarded.size(); i++) {
+            final T message = forwarded.get(i);
+            final int partition = partitionOf(this.keyExtractor.getKey(message), partitions);
+
+            ((ObjectRingBuffer<T>) inPorts.get(partition).getBuffer()).offer(message);
+        }
+    }
+
+    // keeps only the latest message of each key (or only the latest one if
+    // there is no key extractor), in the order of the latest messages
+    @Override
+    @SuppressWarnings("unchecked")
+    void conflate(RingBuffer<Object[]> messages) {
+        if (!this.conflating || (messages.size() < 2)) {
+            return;
+        }
+
+        if (this.conflatedKeys == null) {
+            messages.skip(messages.size() - 1);
+            return;
+        }
+
+        final ObjectRingBuffer<T> waiting = (ObjectRingBuffer<T>) messages;
+        final int size = waiting.size();
+        int kept = 0;
+
+        // from the latest to the oldest - older messages of a key are
+        // replaced by null
+        for (int i = size - 1; i >= 0; i--) {
+            if (this.conflatedKeys.add(this.keyExtractor.getKey(waiting.get(i)))) {
+                kept++;
+            } else {
+                waiting.set(i, null);
+            }
+        }
+
+        this.conflatedKeys.clear();
+
+        // move the remaining messages to the front
+        int target = 0;
+        for (int i = 0; (i < size) && (target < kept); i++) {
+            final T message = waiting.get(i);
+
+            if (message != null) {
+                waiting.set(target++, message);
+            }
+        }
+
+        waiting.removeLast(size - kept);
+    }
+
+    static int partitionOf(Object key, int partitions) {
+        if (key == null) {
+            return 0;
+        }
+
+        // spread the higher bits, hash codes often only differ in those
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+
+        return (hash & Integer.MAX_VALUE) % partitions;
+    }
+
+    // returns the messages the InPorts are done with to the pool - the
+    // messages still waiting in the InPorts are the most recent ones
+    void recycleMessages() {
+        final int consumed = this.inFlight.size() - this.getBacklog();
+
+        for (int i = 0; i < consumed; i++) {
+            this.messagePool.release(this.inFlight.poll());
+        }
+    }
+
+    /**
+     * creates an OutPort that can be used from threads other than the one
+     * executing the scheduler - it must not be given to a process
+     */
+    @SuppressWarnings("unchecked")
+    public ExternalChannelOutPort<T> createExternalOutPort() {
+        ExternalChannelOutPort<T> outPort = new ExternalChannelOutPort<T>(this.messageType,
+                (ObjectRingBuffer<T>) this.newBuffer(), this.getCapacity());
+        outPort.setChannel(this);
+
+        return outPort;
+    }
+
+    @Override
+    RingBuffer<Object[]> newBuffer() {
+        return new ObjectRingBuffer<T>();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    ChannelOutPort<T> newOutPort(RingBuffer<Object[]> buffer, ChannelCapacity capacity) {
+        return new ChannelOutPort<T>(this.messageType, (ObjectRingBuffer<T>) buffer, capacity);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    ChannelInPort<T> newInPort(RingBuffer<Object[]> buffer, boolean shared) {
+        return new ChannelInPort<T>(this.messageType, (ObjectRingBuffer<T>) buffer, shared);
+    }
+}
@@ -0,0 +1,80 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * limits the number of messages a channel holds - OutPorts acquire a
+ * permit per offered message, after each forwarding the permits of the
+ * messages which have left the InPorts are returned
+ */
+final class ChannelCapacity {
+    private final int capacity;
+    private final AtomicInteger available;
+    private final List<ChannelPort<?>> blockedPorts = new ArrayList<ChannelPort<?>>();
+    // the messages waiting in the InPorts after the last release
+    private int backlogAfterLastRelease = 0;
+
+    ChannelCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity has to be at least 1, but was : " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.available = new AtomicInteger(capacity);
+    }
+
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    // either acquires permits for all messages or none
+    boolean tryAcquire(int messages, ChannelPort<?> port) {
+        while (true) {
+            final int current = this.available.get();
+
+            if (current < messages) {
+                this.block(port);
+                return false;
+            }
+
+            if (this.available.compareAndSet(current, current - messages)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void block(ChannelPort<?> port) {
+        if (!this.blockedPorts.contains(port)) {
+            this.blockedPorts.add(port);
+        }
+    }
+
+    synchronized boolean hasBlockedPorts() {
+        return !this.blockedPorts.isEmpty();
+    }
+
+    // forwarded messages have been handed to the InPorts since the last
+    // release - returns true if blocked OutPorts got room to offer their
+    // messages, their owners have been woken up in this case
+    synchronized boolean release(int forwarded, int backlog) {
+        // only adjusted by the delta - external OutPorts may acquire
+        // permits concurrently for messages the channel hasn't seen yet
+        final int released = this.backlogAfterLastRelease + forwarded - backlog;
+        final boolean progress = !this.blockedPorts.isEmpty() && (released > 0);
+
+        this.available.addAndGet(released);
+        this.backlogAfterLastRelease = backlog;
+
+        if (progress) {
+            for (int i = 0; i < this.blockedPorts.size(); i++) {
+                this.blockedPorts.get(i).wakeUpOwner();
+            }
+
+            this.blockedPorts.clear();
+        }
+
+        return progress;
+    }
+}
@@ -1,19 +1,114 @@
-package net.matthiasauer.stwp4j;
-
-public final class ChannelInPort<T> extends ChannelPort<T> {
-    ChannelInPort(Class<T> channelType) {
-        super(channelType);
-    }
-    
-    ChannelInPort(ChannelInPort<T> toShareWith) {
-        super(toShareWith.messageType, toShareWith.messages);
-    }
-
-    public T poll() {
-        return this.messages.poll();
-    }
-    
-    T peek() {
-        return this.messages.peek();
-    }   
-}
+package net.matthiasauer.stwp4j;
+
+import java.util.Collection;
+
+public final class ChannelInPort<T> extends ChannelPort<T> {
+    private final ObjectRingBuffer<T> messages;
+    private final boolean shared;
+
+    ChannelInPort(Class<T> channelType, ObjectRingBuffer<T> messages, boolean shared) {
+        super(channelType);
+        this.messages = messages;
+        this.shared = shared;
+    }
+
+    public T poll() {
+        T message = this.pollOwn();
+
+        // InPorts of work stealing channels take messages of the others
+        while ((message == null) && this.steal()) {
+            message = this.pollOwn();
+        }
+
+        return message;
+    }
+
+    private T pollOwn() {
+        if (this.shared) {
+            // the processes owning the shared InPorts might run concurrently
+            synchronized (this.messages) {
+                return this.messages.poll();
+            }
+        }
+
+        return this.messages.poll();
+    }
+    
+    public int drainTo(Collection<? super T> target) {
+        return this.drainTo(target, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super T> target, int maxMessages) {
+        int count = this.drainOwnTo(target, maxMessages);
+
+        while ((count < maxMessages) && this.steal()) {
+            count += this.drainOwnTo(target, maxMessages - count);
+        }
+
+        return count;
+    }
+
+    private int drainOwnTo(Collection<? super T> target, int maxMessages) {
+        if (this.shared) {
+            synchronized (this.messages) {
+                return this.messages.drainTo(target, maxMessages);
+            }
+        }
+
+        return this.messages.drainTo(target, maxMessages);
+    }
+
+    // returns the number of handled messages
+    public int forEach(MessageHandler<? super T> handler) {
+        int count = this.forEachOwn(handler);
+
+        while (this.steal()) {
+            count += this.forEachOwn(handler);
+        }
+
+        return count;
+    }
+
+    private int forEachOwn(MessageHandler<? super T> handler) {
+        if (this.shared) {
+            // the handler runs outside of the lock - the other processes
+            // owning shared InPorts can take messages meanwhile
+            int count = 0;
+            T message = null;
+
+            while ((message = this.pollOwn()) != null) {
+                handler.handle(message);
+                count++;
+            }
+
+            return count;
+        }
+
+        return this.messages.forEach(handler);
+    }
+
+    T peek() {
+        if (this.shared) {
+            synchronized (this.messages) {
+                return this.messages.peek();
+            }
+        }
+
+        return this.messages.peek();
+    }   
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return true;
+    }
+
+    @Override
+    boolean hasMessages() {
+        return this.peek() != null;
+    }
+}
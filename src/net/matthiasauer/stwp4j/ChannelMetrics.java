@@ -0,0 +1,51 @@
+package net.matthiasauer.stwp4j;
+
+public final class ChannelMetrics {
+    private final String id;
+    private final Histogram forwardedMessages = new Histogram();
+    private long queueDepth = 0;
+    private long maximumQueueDepth = 0;
+    // including the forwardings without any messages
+    private long forwardings = 0;
+
+    ChannelMetrics(String id) {
+        this.id = id;
+    }
+
+    void recordForwarding(int messages, int queueDepth) {
+        this.forwardings++;
+
+        if (messages != 0) {
+            this.forwardedMessages.record(messages);
+        }
+
+        this.queueDepth = queueDepth;
+        this.maximumQueueDepth = Math.max(this.maximumQueueDepth, queueDepth);
+    }
+
+    long getForwardings() {
+        return this.forwardings;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public long getForwardedMessages() {
+        return this.forwardedMessages.getTotal();
+    }
+
+    // number of messages per (non empty) forwarding
+    public Histogram getForwardedMessagesPerForwarding() {
+        return this.forwardedMessages;
+    }
+
+    // messages waiting in the slowest InPort after the last forwarding
+    public long getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    public long getMaximumQueueDepth() {
+        return this.maximumQueueDepth;
+    }
+}
@@ -1,18 +1,59 @@
-package net.matthiasauer.stwp4j;
-
-import java.util.Queue;
-
-public final class ChannelOutPort<T> extends ChannelPort<T> {
-    ChannelOutPort(Class<T> channelType) {
-        super(channelType);
-    }
-
-    public boolean offer(T message) {
-        return this.messages.offer(message);
-    }
-
-    void drainTo(Queue<T> toDrainTo) {
-        toDrainTo.addAll(this.messages);
-        this.messages.clear();
-    }
-}
+package net.matthiasauer.stwp4j;
+
+import java.util.Collection;
+
+public final class ChannelOutPort<T> extends ChannelPort<T> {
+    private final ObjectRingBuffer<T> messages;
+    private final ChannelCapacity capacity;
+
+    ChannelOutPort(Class<T> channelType, ObjectRingBuffer<T> messages, ChannelCapacity capacity) {
+        super(channelType);
+        this.messages = messages;
+        this.capacity = capacity;
+    }
+
+    // returns false if the channel is full
+    public boolean offer(T message) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(1, this)) {
+            return false;
+        }
+
+        return this.messages.offer(message);
+    }
+
+    // either all or none of the messages are offered
+    public boolean offerAll(Collection<? extends T> messages) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(messages.size(), this)) {
+            return false;
+        }
+
+        return this.messages.offerAll(messages);
+    }
+
+    // either all or none of the messages are offered
+    public boolean offer(T[] messages, int offset, int length) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(length, this)) {
+            return false;
+        }
+
+        this.messages.addAll(messages, offset, length);
+
+        return true;
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return false;
+    }
+}
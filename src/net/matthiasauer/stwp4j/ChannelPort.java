@@ -1,21 +1,82 @@
-package net.matthiasauer.stwp4j;
-
-import java.util.LinkedList;
-
-abstract class ChannelPort<T> {
-    protected final Class<T> messageType;
-    protected final LinkedList<T> messages;
-    
-    protected ChannelPort(Class<T> messageType) {
-        this(messageType, new LinkedList<T>());
-    }
-    
-    protected ChannelPort(Class<T> messageType, LinkedList<T> queue) {
-        this.messages = queue;
-        this.messageType = messageType;
-    }
-
-    public Class<T> getMessageType() {
-        return this.messageType;
-    }
-}
+package net.matthiasauer.stwp4j;
+
+public abstract class ChannelPort<T> {
+    protected final Class<T> messageType;
+    private ScheduledProcess owner = null;
+    private AbstractChannel<?, ?, ?> channel = null;
+    private boolean dirty = false;
+    private WorkStealingDeques<?> workStealingDeques = null;
+    private int workStealingIndex = 0;
+    
+    ChannelPort(Class<T> messageType) {
+        this.messageType = messageType;
+    }
+
+    public Class<T> getMessageType() {
+        return this.messageType;
+    }
+
+    abstract RingBuffer<?> getBuffer();
+
+    abstract boolean isInPort();
+
+    // called by the channel before it forwards the messages of the port
+    void collectMessages() {
+    }
+
+    boolean hasMessages() {
+        return !this.getBuffer().isEmpty();
+    }
+
+    void setWorkStealingDeques(WorkStealingDeques<?> workStealingDeques, int workStealingIndex) {
+        this.workStealingDeques = workStealingDeques;
+        this.workStealingIndex = workStealingIndex;
+    }
+
+    // returns whether messages have been stolen from other InPorts - must
+    // not be called while holding the lock of the buffer
+    boolean steal() {
+        return (this.workStealingDeques != null) && this.workStealingDeques.steal(this.workStealingIndex);
+    }
+
+    AbstractChannel<?, ?, ?> getChannel() {
+        return this.channel;
+    }
+
+    void setChannel(AbstractChannel<?, ?, ?> channel) {
+        this.channel = channel;
+    }
+
+    // lets the channel know that it has to forward the messages of this
+    // port - called before each offer, only the first one after a
+    // forwarding has to notify the channel
+    final void markDirty() {
+        if (!this.dirty) {
+            this.dirty = true;
+            this.channel.markDirty(this);
+        }
+    }
+
+    final void clean() {
+        this.dirty = false;
+    }
+
+    ScheduledProcess getOwner() {
+        return this.owner;
+    }
+
+    void setOwner(ScheduledProcess owner) {
+        if (this.owner != null) {
+            throw new IllegalArgumentException("port already belongs to a process, process : "
+                    + this.owner.getProcess());
+        }
+
+        this.owner = owner;
+    }
+
+    void wakeUpOwner() {
+        if (this.owner != null) {
+            this.owner.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package net.matthiasauer.stwp4j;
+
+public class DoubleChannel extends AbstractChannel<double[], DoubleChannelInPort, DoubleChannelOutPort> {
+    DoubleChannel(InputPortType inputType, String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity) {
+        super(inputType, id, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity);
+    }
+
+    @Override
+    Class<Double> getMessageType() {
+        return Double.TYPE;
+    }
+
+    @Override
+    RingBuffer<double[]> newBuffer() {
+        return new DoubleRingBuffer();
+    }
+
+    @Override
+    DoubleChannelOutPort newOutPort(RingBuffer<double[]> buffer, ChannelCapacity capacity) {
+        return new DoubleChannelOutPort((DoubleRingBuffer) buffer, capacity);
+    }
+
+    @Override
+    DoubleChannelInPort newInPort(RingBuffer<double[]> buffer, boolean shared) {
+        return new DoubleChannelInPort((DoubleRingBuffer) buffer, shared);
+    }
+}
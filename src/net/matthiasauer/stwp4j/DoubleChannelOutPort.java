@@ -0,0 +1,46 @@
+package net.matthiasauer.stwp4j;
+
+public final class DoubleChannelOutPort extends ChannelPort<Double> {
+    private final DoubleRingBuffer messages;
+    private final ChannelCapacity capacity;
+
+    DoubleChannelOutPort(DoubleRingBuffer messages, ChannelCapacity capacity) {
+        super(Double.TYPE);
+        this.messages = messages;
+        this.capacity = capacity;
+    }
+
+    // returns false if the channel is full
+    public boolean offer(double message) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(1, this)) {
+            return false;
+        }
+
+        return this.messages.offer(message);
+    }
+
+    // either all or none of the messages are offered
+    public boolean offer(double[] messages, int offset, int length) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(length, this)) {
+            return false;
+        }
+
+        this.messages.addAll(messages, offset, length);
+
+        return true;
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return false;
+    }
+}
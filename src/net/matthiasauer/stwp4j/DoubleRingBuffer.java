@@ -0,0 +1,39 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.NoSuchElementException;
+
+final class DoubleRingBuffer extends RingBuffer<double[]> {
+    @Override
+    protected double[] allocate(int capacity) {
+        return new double[capacity];
+    }
+
+    @Override
+    protected void release(int from, int to) {
+        // nothing to release
+    }
+
+    public boolean offer(double element) {
+        // the index has to be determined first - it might grow the array
+        final int index = this.appendIndex();
+        this.elements[index] = element;
+
+        return true;
+    }
+
+    public double poll() {
+        if (this.isEmpty()) {
+            throw new NoSuchElementException("no element available");
+        }
+
+        return this.elements[this.removeIndex()];
+    }
+
+    public double poll(double emptyValue) {
+        if (this.isEmpty()) {
+            return emptyValue;
+        }
+
+        return this.elements[this.removeIndex()];
+    }
+}
@@ -0,0 +1,151 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the immutable result of compiling the processes of a scheduler - the
+ * execution order and the strongly connected components of the process
+ * graph are computed once
+ */
+public final class ExecutionPlan {
+    private final ProcessOrdering processOrdering;
+    // the processes in the order in which they are executed
+    private final ScheduledProcess[] processes;
+    // the processes which override preIteration / postIteration, in the
+    // order in which they are executed - all others are skipped
+    private final ScheduledProcess[] preIterationProcesses;
+    private final ScheduledProcess[] postIterationProcesses;
+    // the processes without InPorts, executed in each sub-iteration
+    private final ScheduledProcess[] sources;
+    // the processes which might have to be executed without having been
+    // woken up
+    private final ScheduledProcess[] blockingProcesses;
+    // index of the strongly connected component of each process, by its
+    // index in the execution order
+    private final int[] componentOf;
+    private final int componentCount;
+
+    ExecutionPlan(ProcessOrdering processOrdering, List<ScheduledProcess> registeredProcesses) {
+        final ProcessGraph graph = new ProcessGraph(registeredProcesses);
+        final List<ScheduledProcess> order = getOrder(processOrdering, registeredProcesses, graph);
+        final Map<ScheduledProcess, Integer> registrationIndices = new IdentityHashMap<ScheduledProcess, Integer>();
+        final List<ScheduledProcess> preIterationProcesses = new ArrayList<ScheduledProcess>();
+        final List<ScheduledProcess> postIterationProcesses = new ArrayList<ScheduledProcess>();
+        final List<ScheduledProcess> sources = new ArrayList<ScheduledProcess>();
+        final List<ScheduledProcess> blockingProcesses = new ArrayList<ScheduledProcess>();
+
+        for (int i = 0; i < registeredProcesses.size(); i++) {
+            registrationIndices.put(registeredProcesses.get(i), i);
+        }
+
+        this.processOrdering = processOrdering;
+        this.processes = order.toArray(new ScheduledProcess[order.size()]);
+        this.componentOf = new int[this.processes.length];
+        this.componentCount = graph.getComponentCount();
+
+        for (int i = 0; i < this.processes.length; i++) {
+            final ScheduledProcess process = this.processes[i];
+            final Class<?> type = process.getProcess().getClass();
+
+            this.componentOf[i] = graph.getComponentOf(registrationIndices.get(process));
+
+            if (overrides(type, "preIteration")) {
+                preIterationProcesses.add(process);
+            }
+            if (overrides(type, "postIteration")) {
+                postIterationProcesses.add(process);
+            }
+            if (process.isAlwaysRun()) {
+                sources.add(process);
+            }
+            if (process.getProcess() instanceof BlockingProcess) {
+                blockingProcesses.add(process);
+            }
+        }
+
+        this.preIterationProcesses = preIterationProcesses.toArray(
+                new ScheduledProcess[preIterationProcesses.size()]);
+        this.postIterationProcesses = postIterationProcesses.toArray(
+                new ScheduledProcess[postIterationProcesses.size()]);
+        this.sources = sources.toArray(new ScheduledProcess[sources.size()]);
+        this.blockingProcesses = blockingProcesses.toArray(new ScheduledProcess[blockingProcesses.size()]);
+    }
+
+    private static List<ScheduledProcess> getOrder(ProcessOrdering processOrdering,
+            List<ScheduledProcess> registeredProcesses, ProcessGraph graph) {
+        switch (processOrdering) {
+        case Registration:
+            return registeredProcesses;
+        case Topological:
+            return graph.getTopologicalOrder();
+        default:
+            throw new NullPointerException("Unknown ProcessOrdering : " + processOrdering);
+        }
+    }
+
+    // whether the given method of LightweightProcess is overridden - if
+    // unsure it is assumed to be
+    private static boolean overrides(Class<?> type, String methodName) {
+        for (Class<?> current = type; current != LightweightProcess.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(methodName);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look at the superclass
+            } catch (SecurityException e) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    ScheduledProcess[] getProcesses() {
+        return this.processes;
+    }
+
+    ScheduledProcess[] getPreIterationProcesses() {
+        return this.preIterationProcesses;
+    }
+
+    ScheduledProcess[] getPostIterationProcesses() {
+        return this.postIterationProcesses;
+    }
+
+    ScheduledProcess[] getSources() {
+        return this.sources;
+    }
+
+    ScheduledProcess[] getBlockingProcesses() {
+        return this.blockingProcesses;
+    }
+
+    public ProcessOrdering getProcessOrdering() {
+        return this.processOrdering;
+    }
+
+    public int getProcessCount() {
+        return this.processes.length;
+    }
+
+    // the process at the given index of the execution order
+    public LightweightProcess getProcess(int index) {
+        return this.processes[index].getProcess();
+    }
+
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    /**
+     * the strongly connected component of the process at the given index of
+     * the execution order - processes which exchange messages in a cycle
+     * share their component
+     */
+    public int getComponentOf(int index) {
+        return this.componentOf[index];
+    }
+}
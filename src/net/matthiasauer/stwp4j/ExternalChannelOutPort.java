@@ -0,0 +1,77 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * OutPort that may be used by any thread at any time - the messages are
+ * queued without locking and handed to the channel on its next forwarding
+ * (at the start of the iteration or after the current sub-iteration).
+ * Only the first offer after each forwarding notifies the channel, which
+ * briefly locks the channel and the scheduler - an offer rejected by a
+ * full channel also locks the capacity to register the OutPort as blocked
+ */
+public final class ExternalChannelOutPort<T> extends ChannelPort<T> {
+    private final MpscQueue<T> queue = new MpscQueue<T>();
+    // only accessed by the thread executing the scheduler
+    private final ObjectRingBuffer<T> messages;
+    private final ChannelCapacity capacity;
+    // whether the channel already knows about the queued messages
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    ExternalChannelOutPort(Class<T> channelType, ObjectRingBuffer<T> messages, ChannelCapacity capacity) {
+        super(channelType);
+        this.messages = messages;
+        this.capacity = capacity;
+    }
+
+    // returns false if the channel is full
+    public boolean offer(T message) {
+        if ((this.capacity != null) && !this.capacity.tryAcquire(1, this)) {
+            this.notifyChannel();
+            return false;
+        }
+
+        this.queue.offer(message);
+        this.notifyChannel();
+
+        return true;
+    }
+
+    private void notifyChannel() {
+        if (this.pending.compareAndSet(false, true)) {
+            this.getChannel().markDirty(this);
+        }
+    }
+
+    @Override
+    void collectMessages() {
+        this.pending.set(false);
+
+        T message = null;
+        while ((message = this.queue.poll()) != null) {
+            this.messages.offer(message);
+        }
+
+        // messages which are still being linked are collected on the next
+        // forwarding
+        if (!this.queue.isEmpty()) {
+            this.notifyChannel();
+        }
+    }
+
+    @Override
+    void setOwner(ScheduledProcess owner) {
+        throw new IllegalArgumentException("external OutPorts can't belong to a process, process : "
+                + owner.getProcess());
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * performs the iterations of a scheduler at a fixed rate on its own thread
+ */
+final class FixedRateRunner implements Runnable {
+    private final Scheduler scheduler;
+    private final long period;
+    private final OverrunPolicy overrunPolicy;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Throwable failure = null;
+
+    // statistics - guarded by this
+    private long iterations = 0;
+    private long overruns = 0;
+    private long skippedTicks = 0;
+    private long minimumLatency = Long.MAX_VALUE;
+    private long maximumLatency = 0;
+    private long totalLatency = 0;
+    private long maximumJitter = 0;
+    private long totalJitter = 0;
+
+    FixedRateRunner(Scheduler scheduler, double iterationsPerSecond, OverrunPolicy overrunPolicy, String name) {
+        if (!(iterationsPerSecond > 0)) {
+            throw new IllegalArgumentException("iterations per second have to be positive, but were : "
+                    + iterationsPerSecond);
+        }
+
+        this.scheduler = scheduler;
+        this.period = Math.max(1, Math.round(1000000000.0 / iterationsPerSecond));
+        this.overrunPolicy = overrunPolicy;
+        this.thread = new Thread(this, name);
+    }
+
+    void start() {
+        this.thread.start();
+    }
+
+    boolean isRunning() {
+        return this.running;
+    }
+
+    // stops the runner and waits until the current iteration has finished
+    void stop() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+
+        if (Thread.currentThread() != this.thread) {
+            boolean interrupted = false;
+
+            while (this.thread.isAlive()) {
+                try {
+                    this.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (this.failure != null) {
+            throw new IllegalStateException("an iteration failed, the scheduler was stopped", this.failure);
+        }
+    }
+
+    @Override
+    public void run() {
+        long tick = System.nanoTime();
+
+        try {
+            while (this.running) {
+                final long scheduled = tick;
+                final long start = System.nanoTime();
+
+                this.scheduler.performIteration();
+
+                final long end = System.nanoTime();
+                tick += this.period;
+
+                long skipped = 0;
+                boolean overrun = end > tick;
+
+                if (overrun) {
+                    switch (this.overrunPolicy) {
+                    case Skip:
+                        skipped = (end - tick + this.period - 1) / this.period;
+                        tick += skipped * this.period;
+                        break;
+                    case CatchUp:
+                        break;
+                    case Drift:
+                        tick = end + this.period;
+                        break;
+                    default:
+                        throw new NullPointerException("Unknown OverrunPolicy : " + this.overrunPolicy);
+                    }
+                }
+
+                this.record(end - start, start - scheduled, overrun, skipped);
+                this.sleepUntil(tick);
+            }
+        } catch (Throwable throwable) {
+            this.failure = throwable;
+            this.running = false;
+        }
+    }
+
+    private void sleepUntil(long tick) {
+        long remaining = tick - System.nanoTime();
+
+        while (this.running && (remaining > 0)) {
+            LockSupport.parkNanos(this, remaining);
+            remaining = tick - System.nanoTime();
+        }
+    }
+
+    private synchronized void record(long latency, long jitter, boolean overrun, long skipped) {
+        jitter = Math.max(0, jitter);
+
+        this.iterations++;
+        this.minimumLatency = Math.min(this.minimumLatency, latency);
+        this.maximumLatency = Math.max(this.maximumLatency, latency);
+        this.totalLatency += latency;
+        this.maximumJitter = Math.max(this.maximumJitter, jitter);
+        this.totalJitter += jitter;
+        this.skippedTicks += skipped;
+
+        if (overrun) {
+            this.overruns++;
+        }
+    }
+
+    synchronized RunStatistics getStatistics() {
+        return new RunStatistics(this.iterations, this.overruns, this.skippedTicks,
+                (this.iterations == 0) ? 0 : this.minimumLatency, this.maximumLatency, this.totalLatency,
+                this.maximumJitter, this.totalJitter);
+    }
+}
@@ -0,0 +1,54 @@
+package net.matthiasauer.stwp4j;
+
+/**
+ * histogram with power of two buckets - bucket i counts the values in
+ * [2^i, 2^(i+1)), bucket 0 additionally counts 0
+ */
+public final class Histogram {
+    private static final int BUCKETS = 64;
+    private final long[] buckets = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long maximum = 0;
+
+    void record(long value) {
+        value = Math.max(0, value);
+
+        this.buckets[(BUCKETS - 1) - Long.numberOfLeadingZeros(Math.max(1, value))]++;
+        this.count++;
+        this.total += value;
+        this.maximum = Math.max(this.maximum, value);
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    public long getMaximum() {
+        return this.maximum;
+    }
+
+    public long getMean() {
+        return (this.count == 0) ? 0 : (this.total / this.count);
+    }
+
+    // upper bound of the given percentile (between 0 and 100)
+    public long getPercentile(double percentile) {
+        final long rank = (long) Math.ceil(this.count * (percentile / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets[i];
+
+            if ((seen >= rank) && (seen > 0)) {
+                return Math.min(this.maximum, (i == BUCKETS - 1) ? Long.MAX_VALUE : (2L << i) - 1);
+            }
+        }
+
+        return 0;
+    }
+}
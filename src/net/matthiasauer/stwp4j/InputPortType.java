@@ -1,6 +1,11 @@
-package net.matthiasauer.stwp4j;
-
-public enum InputPortType {
-    Multiplex,
-    Shared
-}
+package net.matthiasauer.stwp4j;
+
+public enum InputPortType {
+    Multiplex,
+    Shared,
+    // each InPort has its own messages, InPorts without messages steal
+    // from the others
+    WorkStealing,
+    // each message is routed to an InPort based on its key
+    Partitioned
+}
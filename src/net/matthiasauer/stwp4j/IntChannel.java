@@ -0,0 +1,28 @@
+package net.matthiasauer.stwp4j;
+
+public class IntChannel extends AbstractChannel<int[], IntChannelInPort, IntChannelOutPort> {
+    IntChannel(InputPortType inputType, String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity) {
+        super(inputType, id, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity);
+    }
+
+    @Override
+    Class<Integer> getMessageType() {
+        return Integer.TYPE;
+    }
+
+    @Override
+    RingBuffer<int[]> newBuffer() {
+        return new IntRingBuffer();
+    }
+
+    @Override
+    IntChannelOutPort newOutPort(RingBuffer<int[]> buffer, ChannelCapacity capacity) {
+        return new IntChannelOutPort((IntRingBuffer) buffer, capacity);
+    }
+
+    @Override
+    IntChannelInPort newInPort(RingBuffer<int[]> buffer, boolean shared) {
+        return new IntChannelInPort((IntRingBuffer) buffer, shared);
+    }
+}
@@ -0,0 +1,77 @@
+package net.matthiasauer.stwp4j;
+
+public final class IntChannelInPort extends ChannelPort<Integer> {
+    private final IntRingBuffer messages;
+    private final boolean shared;
+
+    IntChannelInPort(IntRingBuffer messages, boolean shared) {
+        super(Integer.TYPE);
+        this.messages = messages;
+        this.shared = shared;
+    }
+
+    public boolean isEmpty() {
+        if (this.shared) {
+            synchronized (this.messages) {
+                return this.messages.isEmpty();
+            }
+        }
+
+        return this.messages.isEmpty();
+    }
+
+    /**
+     * throws a NoSuchElementException if no message is available
+     */
+    public int poll() {
+        if (this.shared) {
+            // the processes owning the shared InPorts might run concurrently
+            synchronized (this.messages) {
+                return this.messages.poll();
+            }
+        }
+
+        return this.messages.poll();
+    }
+
+    /**
+     * returns emptyValue if no message is available - unlike isEmpty
+     * followed by poll this can't fail if processes owning the shared
+     * InPorts run concurrently
+     */
+    public int poll(int emptyValue) {
+        if (this.shared) {
+            synchronized (this.messages) {
+                return this.messages.poll(emptyValue);
+            }
+        }
+
+        return this.messages.poll(emptyValue);
+    }
+
+    // returns the number of messages copied to the array
+    public int drainTo(int[] target, int offset, int maxMessages) {
+        if (this.shared) {
+            synchronized (this.messages) {
+                return this.messages.removeTo(target, offset, maxMessages);
+            }
+        }
+
+        return this.messages.removeTo(target, offset, maxMessages);
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return true;
+    }
+
+    @Override
+    boolean hasMessages() {
+        return !this.isEmpty();
+    }
+}
@@ -0,0 +1,46 @@
+package net.matthiasauer.stwp4j;
+
+public final class IntChannelOutPort extends ChannelPort<Integer> {
+    private final IntRingBuffer messages;
+    private final ChannelCapacity capacity;
+
+    IntChannelOutPort(IntRingBuffer messages, ChannelCapacity capacity) {
+        super(Integer.TYPE);
+        this.messages = messages;
+        this.capacity = capacity;
+    }
+
+    // returns false if the channel is full
+    public boolean offer(int message) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(1, this)) {
+            return false;
+        }
+
+        return this.messages.offer(message);
+    }
+
+    // either all or none of the messages are offered
+    public boolean offer(int[] messages, int offset, int length) {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(length, this)) {
+            return false;
+        }
+
+        this.messages.addAll(messages, offset, length);
+
+        return true;
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return false;
+    }
+}
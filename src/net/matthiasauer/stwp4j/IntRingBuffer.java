@@ -0,0 +1,39 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.NoSuchElementException;
+
+final class IntRingBuffer extends RingBuffer<int[]> {
+    @Override
+    protected int[] allocate(int capacity) {
+        return new int[capacity];
+    }
+
+    @Override
+    protected void release(int from, int to) {
+        // nothing to release
+    }
+
+    public boolean offer(int element) {
+        // the index has to be determined first - it might grow the array
+        final int index = this.appendIndex();
+        this.elements[index] = element;
+
+        return true;
+    }
+
+    public int poll() {
+        if (this.isEmpty()) {
+            throw new NoSuchElementException("no element available");
+        }
+
+        return this.elements[this.removeIndex()];
+    }
+
+    public int poll(int emptyValue) {
+        if (this.isEmpty()) {
+            return emptyValue;
+        }
+
+        return this.elements[this.removeIndex()];
+    }
+}
@@ -0,0 +1,190 @@
+package net.matthiasauer.stwp4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * writes the messages forwarded by the recorded channels to an append-only
+ * memory-mapped file - the file is written in regions of a fixed size, a
+ * record never spans two regions
+ */
+public final class JournalRecorder implements Closeable {
+    static final long MAGIC = 0x53545750344A524CL;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final byte END_OF_REGION = 0;
+    static final byte CHANNEL_DEFINITION = 1;
+    static final byte MESSAGE = 2;
+    static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel fileChannel;
+    private final int regionSize;
+    // detached when the journal is stopped or closed
+    private final List<Channel<?>> channels = new ArrayList<Channel<?>>();
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private int channelCount = 0;
+    private long iteration = -1;
+    private int subIteration = 0;
+    private long recordedMessages = 0;
+    private boolean closed = false;
+
+    public JournalRecorder(File file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    public JournalRecorder(File file, int regionSize) throws IOException {
+        if (regionSize < 1024) {
+            throw new IllegalArgumentException("regions have to be at least 1024 bytes, but were : " + regionSize);
+        }
+
+        this.regionSize = regionSize;
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.fileChannel = this.file.getChannel();
+        this.region = this.fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+        this.region.putLong(MAGIC);
+        this.region.putInt(VERSION);
+        this.region.putInt(regionSize);
+    }
+
+    /**
+     * records the messages forwarded by the channel from now on
+     */
+    public synchronized <T> void record(Channel<T> channel, MessageCodec<T> codec) {
+        this.checkOpen();
+
+        final int index = this.channelCount++;
+        final byte[] id = channel.getId().getBytes(CHARSET);
+
+        if ((1 + 4 + 4 + id.length) > (this.regionSize - HEADER_SIZE)) {
+            throw new IllegalArgumentException("channel id too long for the journal : " + channel.getId());
+        }
+
+        if (this.region.remaining() < (1 + 4 + 4 + id.length)) {
+            this.nextRegion();
+        }
+
+        this.region.put(CHANNEL_DEFINITION);
+        this.region.putInt(index);
+        this.region.putInt(id.length);
+        this.region.put(id);
+
+        channel.setJournal(this, index, codec);
+        this.channels.add(channel);
+    }
+
+    // the channels stop recording their messages
+    synchronized void detach() {
+        for (int i = 0; i < this.channels.size(); i++) {
+            this.channels.get(i).detachJournal();
+        }
+
+        this.channels.clear();
+    }
+
+    // called by the scheduler
+    void startIteration() {
+        this.iteration++;
+        this.subIteration = 0;
+    }
+
+    void startSubIteration() {
+        this.subIteration++;
+    }
+
+    // messages forwarded while the journal is closed are dropped
+    synchronized <T> void recordMessages(int channel, MessageCodec<T> codec, ObjectRingBuffer<T> messages) {
+        if (this.closed) {
+            return;
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            this.recordMessage(channel, codec, messages.get(i));
+        }
+    }
+
+    private <T> void recordMessage(int channel, MessageCodec<T> codec, T message) {
+        boolean emptyRegion = false;
+
+        while (true) {
+            final int start = this.region.position();
+
+            try {
+                this.region.put(MESSAGE);
+                this.region.putInt(channel);
+                this.region.putLong(this.iteration);
+                this.region.putInt(this.subIteration);
+
+                final int lengthPosition = this.region.position();
+                this.region.putInt(0);
+                codec.encode(message, this.region);
+                this.region.putInt(lengthPosition, this.region.position() - lengthPosition - 4);
+                this.recordedMessages++;
+
+                return;
+            } catch (BufferOverflowException e) {
+                if (emptyRegion) {
+                    throw new IllegalArgumentException("message too large for a journal region of "
+                            + this.regionSize + " bytes : " + message);
+                }
+
+                this.region.position(start);
+                this.nextRegion();
+                emptyRegion = true;
+            }
+        }
+    }
+
+    private void nextRegion() {
+        // the rest of the region is skipped when reading
+        if (this.region.hasRemaining()) {
+            this.region.put(END_OF_REGION);
+        }
+
+        this.regionStart += this.regionSize;
+
+        try {
+            this.region = this.fileChannel.map(FileChannel.MapMode.READ_WRITE, this.regionStart, this.regionSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to extend the journal", e);
+        }
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("the journal has been closed");
+        }
+    }
+
+    public synchronized long getRecordedMessages() {
+        return this.recordedMessages;
+    }
+
+    /**
+     * truncates the file to the recorded data - the recorded channels stop
+     * recording their messages
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+
+        this.detach();
+        this.closed = true;
+        this.region.force();
+        this.fileChannel.truncate(this.regionStart + this.region.position());
+        this.file.close();
+    }
+}
@@ -0,0 +1,224 @@
+package net.matthiasauer.stwp4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * feeds the messages of a journal back into a scheduler - the messages
+ * recorded in an iteration are offered to the bound OutPorts before the
+ * scheduler performs the corresponding iteration. A message rejected by a
+ * bounded channel is offered again before the next iteration, the messages
+ * recorded after it wait for it to keep their order
+ */
+public final class JournalReplay implements Closeable {
+    private static final class Binding<T> {
+        private final ChannelOutPort<T> outPort;
+        private final MessageCodec<T> codec;
+
+        Binding(ChannelOutPort<T> outPort, MessageCodec<T> codec) {
+            this.outPort = outPort;
+            this.codec = codec;
+        }
+
+        boolean offer(ByteBuffer payload) {
+            return this.outPort.offer(this.codec.decode(payload));
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel fileChannel;
+    private final long fileSize;
+    private final int regionSize;
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private final Map<String, Binding<?>> bindings = new HashMap<String, Binding<?>>();
+    // the bindings by the index of the channel in the journal
+    private final List<Binding<?>> channels = new ArrayList<Binding<?>>();
+    private boolean started = false;
+    // whether the payload of the next message is at the position
+    private boolean hasNextMessage = false;
+    private long nextIteration = 0;
+    // the recorded iteration which is replayed next
+    private long iteration = 0;
+    private int nextChannel = 0;
+    private long replayedMessages = 0;
+
+    public JournalReplay(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.fileChannel = this.file.getChannel();
+        this.fileSize = this.fileChannel.size();
+        this.region = this.fileChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(this.fileSize, JournalRecorder.HEADER_SIZE));
+
+        if ((this.region.remaining() < JournalRecorder.HEADER_SIZE)
+                || (this.region.getLong() != JournalRecorder.MAGIC)) {
+            this.file.close();
+            throw new IllegalArgumentException("not a journal : " + file);
+        }
+
+        final int version = this.region.getInt();
+        if (version != JournalRecorder.VERSION) {
+            this.file.close();
+            throw new IllegalArgumentException("unsupported journal version : " + version);
+        }
+
+        this.regionSize = this.region.getInt();
+    }
+
+    private MappedByteBuffer mapRegion() throws IOException {
+        return this.fileChannel.map(FileChannel.MapMode.READ_ONLY, this.regionStart,
+                Math.min(this.fileSize - this.regionStart, this.regionSize));
+    }
+
+    /**
+     * the recorded messages of the channel with the given id are offered
+     * to the OutPort - messages of channels without binding are skipped
+     */
+    public <T> void bind(String channelId, ChannelOutPort<T> outPort, MessageCodec<T> codec) {
+        if (this.started) {
+            throw new IllegalStateException("bindings can't be changed once the replay has started");
+        }
+
+        this.bindings.put(channelId, new Binding<T>(outPort, codec));
+    }
+
+    /**
+     * replays the whole journal - performs an iteration for each recorded
+     * iteration up to the last one with messages and one more for each
+     * iteration a rejected message had to wait, returns the number of
+     * performed iterations
+     */
+    public long replay(Scheduler scheduler) throws IOException {
+        long iterations = 0;
+
+        while (this.replayIteration(scheduler)) {
+            iterations++;
+        }
+
+        return iterations;
+    }
+
+    /**
+     * offers the messages of the next recorded iteration (if it had any)
+     * and performs an iteration, returns false if the journal has been
+     * replayed completely
+     */
+    public boolean replayIteration(Scheduler scheduler) throws IOException {
+        if (!this.started) {
+            // the header of the first region has been mapped on its own
+            this.started = true;
+            this.region = this.mapRegion();
+            this.region.position(JournalRecorder.HEADER_SIZE);
+            this.hasNextMessage = this.readNextMessage();
+        }
+
+        if (!this.hasNextMessage) {
+            return false;
+        }
+
+        // iterations without messages are replayed as well to keep the
+        // timing of the recorded load
+        while (this.hasNextMessage && (this.nextIteration <= this.iteration)) {
+            if (!this.offerMessage()) {
+                // the channel is full, retried in the next iteration
+                break;
+            }
+
+            this.hasNextMessage = this.readNextMessage();
+        }
+
+        scheduler.performIteration();
+        this.iteration++;
+
+        return true;
+    }
+
+    // returns false if the message has been rejected, the position is then
+    // left at the message
+    private boolean offerMessage() {
+        final int start = this.region.position();
+        final int length = this.region.getInt();
+        final int limit = this.region.limit();
+        final int end = this.region.position() + length;
+        final Binding<?> binding = this.channels.get(this.nextChannel);
+
+        if (binding != null) {
+            this.region.limit(end);
+            final boolean offered = binding.offer(this.region);
+            this.region.limit(limit);
+
+            if (!offered) {
+                this.region.position(start);
+                return false;
+            }
+
+            this.replayedMessages++;
+        }
+
+        this.region.position(end);
+
+        return true;
+    }
+
+    // reads up to the payload of the next message, returns false at the end
+    // of the journal
+    private boolean readNextMessage() throws IOException {
+        while (true) {
+            if (!this.region.hasRemaining()
+                    || (this.region.get(this.region.position()) == JournalRecorder.END_OF_REGION)) {
+                if ((this.regionStart + this.regionSize) >= this.fileSize) {
+                    return false;
+                }
+
+                this.regionStart += this.regionSize;
+                this.region = this.mapRegion();
+                continue;
+            }
+
+            final byte type = this.region.get();
+
+            if (type == JournalRecorder.CHANNEL_DEFINITION) {
+                this.readChannelDefinition();
+            } else if (type == JournalRecorder.MESSAGE) {
+                this.nextChannel = this.region.getInt();
+                this.nextIteration = this.region.getLong();
+                // the sub-iteration is only of interest for analysis
+                this.region.getInt();
+
+                return true;
+            } else {
+                throw new IllegalStateException("corrupt journal, unknown record type : " + type);
+            }
+        }
+    }
+
+    private void readChannelDefinition() {
+        final int index = this.region.getInt();
+        final byte[] id = new byte[this.region.getInt()];
+        this.region.get(id);
+
+        while (this.channels.size() <= index) {
+            this.channels.add(null);
+        }
+
+        this.channels.set(index, this.bindings.get(new String(id, JournalRecorder.CHARSET)));
+    }
+
+    public long getReplayedMessages() {
+        return this.replayedMessages;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+}
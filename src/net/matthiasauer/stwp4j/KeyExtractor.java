@@ -0,0 +1,6 @@
+package net.matthiasauer.stwp4j;
+
+public interface KeyExtractor<T> {
+    // messages with equal keys are handled by the same InPort
+    Object getKey(T message);
+}
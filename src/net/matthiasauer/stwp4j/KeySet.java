@@ -0,0 +1,64 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.Arrays;
+
+/**
+ * set of keys with open addressing - once it has grown to the number of
+ * keys needed it can be cleared and refilled without allocating
+ */
+final class KeySet {
+    private static final Object NULL_KEY = new Object();
+    private Object[] keys = new Object[16];
+    private int size = 0;
+
+    // returns false if the key is already contained
+    boolean add(Object key) {
+        final Object element = (key == null) ? NULL_KEY : key;
+
+        if ((this.size + 1) * 2 > this.keys.length) {
+            this.grow();
+        }
+
+        final int mask = this.keys.length - 1;
+        int index = hash(element) & mask;
+
+        while (this.keys[index] != null) {
+            if (this.keys[index].equals(element)) {
+                return false;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        this.keys[index] = element;
+        this.size++;
+
+        return true;
+    }
+
+    private static int hash(Object key) {
+        final int hash = key.hashCode();
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        final Object[] keys = this.keys;
+
+        this.keys = new Object[keys.length * 2];
+        this.size = 0;
+
+        for (Object key : keys) {
+            if (key != null) {
+                this.add(key);
+            }
+        }
+    }
+
+    void clear() {
+        if (this.size != 0) {
+            Arrays.fill(this.keys, null);
+            this.size = 0;
+        }
+    }
+}
@@ -1,11 +1,17 @@
-package net.matthiasauer.stwp4j;
-
-public abstract class LightweightProcess {
-    protected abstract void execute();
-
-    protected void preIteration() {
-    }
-
-    protected void postIteration() {
-    }
-}
+package net.matthiasauer.stwp4j;
+
+public abstract class LightweightProcess {
+    protected abstract void execute();
+
+    protected void preIteration() {
+    }
+
+    protected void postIteration() {
+    }
+
+    // whether the process has to be executed even if it hasn't been woken
+    // up by its InPorts
+    boolean isPending() {
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package net.matthiasauer.stwp4j;
+
+public class LongChannel extends AbstractChannel<long[], LongChannelInPort, LongChannelOutPort> {
+    LongChannel(InputPortType inputType, String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity) {
+        super(inputType, id, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity);
+    }
+
+    @Override
+    Class<Long> getMessageType() {
+        return Long.TYPE;
+    }
+
+    @Override
+    RingBuffer<long[]> newBuffer() {
+        return new LongRingBuffer();
+    }
+
+    @Override
+    LongChannelOutPort newOutPort(RingBuffer<long[]> buffer, ChannelCapacity capacity) {
+        return new LongChannelOutPort((LongRingBuffer) buffer, capacity);
+    }
+
+    @Override
+    LongChannelInPort newInPort(RingBuffer<long[]> buffer, boolean shared) {
+        return new LongChannelInPort((LongRingBuffer) buffer, shared);
+    }
+}
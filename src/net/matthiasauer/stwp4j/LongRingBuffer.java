@@ -0,0 +1,39 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.NoSuchElementException;
+
+final class LongRingBuffer extends RingBuffer<long[]> {
+    @Override
+    protected long[] allocate(int capacity) {
+        return new long[capacity];
+    }
+
+    @Override
+    protected void release(int from, int to) {
+        // nothing to release
+    }
+
+    public boolean offer(long element) {
+        // the index has to be determined first - it might grow the array
+        final int index = this.appendIndex();
+        this.elements[index] = element;
+
+        return true;
+    }
+
+    public long poll() {
+        if (this.isEmpty()) {
+            throw new NoSuchElementException("no element available");
+        }
+
+        return this.elements[this.removeIndex()];
+    }
+
+    public long poll(long emptyValue) {
+        if (this.isEmpty()) {
+            return emptyValue;
+        }
+
+        return this.elements[this.removeIndex()];
+    }
+}
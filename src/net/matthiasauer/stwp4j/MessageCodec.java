@@ -0,0 +1,14 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * serializes the messages of a channel for the journal
+ */
+public interface MessageCodec<T> {
+    // writes the message at the position of the buffer
+    void encode(T message, ByteBuffer target);
+
+    // reads the message between the position and the limit of the buffer
+    T decode(ByteBuffer source);
+}
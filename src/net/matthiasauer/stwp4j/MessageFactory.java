@@ -0,0 +1,5 @@
+package net.matthiasauer.stwp4j;
+
+public interface MessageFactory<T> {
+    T create();
+}
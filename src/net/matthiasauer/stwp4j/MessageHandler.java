@@ -0,0 +1,5 @@
+package net.matthiasauer.stwp4j;
+
+public interface MessageHandler<T> {
+    void handle(T message);
+}
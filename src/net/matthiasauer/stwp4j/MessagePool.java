@@ -0,0 +1,52 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * reusable messages of a channel - the scheduler returns the forwarded
+ * messages to the pool at the end of each iteration once the InPorts have
+ * consumed them, so consumers must not keep (or forward) them beyond the
+ * iteration
+ */
+public final class MessagePool<T> {
+    private final MessageFactory<T> factory;
+    // guarded by this - the processes might run concurrently
+    private final List<T> available = new ArrayList<T>();
+    private long created = 0;
+
+    MessagePool(MessageFactory<T> factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("factory must not be null");
+        }
+
+        this.factory = factory;
+    }
+
+    // returns a recycled message, only creates one if none is available
+    public T acquire() {
+        synchronized (this) {
+            if (!this.available.isEmpty()) {
+                return this.available.remove(this.available.size() - 1);
+            }
+
+            this.created++;
+        }
+
+        return this.factory.create();
+    }
+
+    // for messages that have been acquired but not offered
+    public synchronized void release(T message) {
+        this.available.add(message);
+    }
+
+    public synchronized int getAvailable() {
+        return this.available.size();
+    }
+
+    // the number of messages the factory created
+    public synchronized long getCreated() {
+        return this.created;
+    }
+}
@@ -0,0 +1,69 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * unbounded lock-free queue for multiple producers and a single consumer -
+ * producers only swap the tail, the consumer is the only one touching the
+ * head
+ */
+final class MpscQueue<T> {
+    private static final class Node<T> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT = AtomicReferenceFieldUpdater
+                .newUpdater(Node.class, Node.class, "next");
+
+        private T value;
+        private volatile Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+
+        void lazySetNext(Node<T> next) {
+            NEXT.lazySet(this, next);
+        }
+    }
+
+    private final AtomicReference<Node<T>> tail;
+    // only accessed by the consumer
+    private Node<T> head;
+
+    MpscQueue() {
+        this.head = new Node<T>(null);
+        this.tail = new AtomicReference<Node<T>>(this.head);
+    }
+
+    // may be called by any thread
+    void offer(T value) {
+        final Node<T> node = new Node<T>(value);
+        final Node<T> previous = this.tail.getAndSet(node);
+
+        // until this is visible the consumer can't see the node (nor
+        // the ones after it)
+        previous.lazySetNext(node);
+    }
+
+    // only to be called by the consumer - null if the queue is empty or
+    // the next message is not completely linked yet
+    T poll() {
+        final Node<T> next = this.head.next;
+
+        if (next == null) {
+            return null;
+        }
+
+        final T value = next.value;
+        next.value = null;
+        this.head = next;
+
+        return value;
+    }
+
+    // only to be called by the consumer - also true while messages are
+    // being linked
+    boolean isEmpty() {
+        return this.tail.get() == this.head;
+    }
+}
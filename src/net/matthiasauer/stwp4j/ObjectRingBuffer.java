@@ -0,0 +1,102 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+final class ObjectRingBuffer<T> extends RingBuffer<Object[]> {
+    @Override
+    protected Object[] allocate(int capacity) {
+        return new Object[capacity];
+    }
+
+    @Override
+    protected void release(int from, int to) {
+        // don't keep the messages alive
+        Arrays.fill(this.elements, from, to, null);
+    }
+
+    public boolean offer(T element) {
+        // the index has to be determined first - it might grow the array
+        final int index = this.appendIndex();
+        this.elements[index] = element;
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (this.isEmpty()) {
+            return null;
+        }
+
+        final int index = this.removeIndex();
+        final T element = (T) this.elements[index];
+        this.discard(index, index + 1);
+
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (this.isEmpty()) {
+            return null;
+        }
+
+        return (T) this.elements[this.headIndex()];
+    }
+
+    // the element at the given position (0 is the first one) - without
+    // removing it
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        return (T) this.elements[this.indexOf(position)];
+    }
+
+    // replaces the element at the given position
+    public void set(int position, T element) {
+        this.elements[this.indexOf(position)] = element;
+    }
+
+    public boolean offerAll(Collection<? extends T> messages) {
+        this.ensureCapacity(this.size() + messages.size());
+
+        if ((messages instanceof List) && (messages instanceof RandomAccess)) {
+            // avoids the iterator
+            final List<? extends T> list = (List<? extends T>) messages;
+
+            for (int i = 0; i < list.size(); i++) {
+                this.offer(list.get(i));
+            }
+        } else {
+            for (T message : messages) {
+                this.offer(message);
+            }
+        }
+
+        return true;
+    }
+
+    public int drainTo(Collection<? super T> target, int maxMessages) {
+        final int count = Math.min(this.size(), maxMessages);
+
+        for (int i = 0; i < count; i++) {
+            target.add(this.poll());
+        }
+
+        return count;
+    }
+
+    public int forEach(MessageHandler<? super T> handler) {
+        int count = 0;
+
+        // messages added by the handler are handled as well
+        while (!this.isEmpty()) {
+            handler.handle(this.poll());
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,17 @@
+package net.matthiasauer.stwp4j;
+
+/**
+ * what happens if an iteration takes longer than the period of a
+ * scheduler running at a fixed rate
+ */
+public enum OverrunPolicy {
+    // the missed ticks are dropped, the next iteration starts at the next
+    // tick that hasn't passed yet
+    Skip,
+    // the missed ticks are executed back to back until the scheduler is
+    // on time again
+    CatchUp,
+    // the schedule is shifted, the next iteration starts one period after
+    // the end of the overrunning one
+    Drift
+}
@@ -0,0 +1,200 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * the graph of the processes of a scheduler - a process depends on another
+ * if it owns an InPort of a channel to which the other one owns an OutPort
+ */
+final class ProcessGraph {
+    private final List<ScheduledProcess> processes;
+    // successors of each process, by index
+    private final int[][] successors;
+    // index of the strongly connected component of each process
+    private final int[] componentOf;
+    private final int componentCount;
+
+    ProcessGraph(List<ScheduledProcess> processes) {
+        this.processes = processes;
+        this.successors = this.createSuccessors();
+        this.componentOf = new int[processes.size()];
+        this.componentCount = this.findComponents();
+    }
+
+    private int[][] createSuccessors() {
+        final Map<ScheduledProcess, Integer> indices = new IdentityHashMap<ScheduledProcess, Integer>();
+        final int[][] successors = new int[this.processes.size()][];
+
+        for (int i = 0; i < this.processes.size(); i++) {
+            indices.put(this.processes.get(i), i);
+        }
+
+        for (int i = 0; i < this.processes.size(); i++) {
+            final List<Integer> consumers = new ArrayList<Integer>();
+
+            for (ChannelPort<?> outPort : this.processes.get(i).getOutPorts()) {
+                for (ChannelPort<?> inPort : outPort.getChannel().getInPorts()) {
+                    final Integer consumer = indices.get(inPort.getOwner());
+
+                    if ((consumer != null) && !consumers.contains(consumer)) {
+                        consumers.add(consumer);
+                    }
+                }
+            }
+
+            successors[i] = new int[consumers.size()];
+            for (int j = 0; j < consumers.size(); j++) {
+                successors[i][j] = consumers.get(j);
+            }
+        }
+
+        return successors;
+    }
+
+    // iterative version of Tarjan's algorithm - long chains of processes
+    // must not overflow the stack
+    private int findComponents() {
+        final int size = this.processes.size();
+        final int[] index = new int[size];
+        final int[] lowLink = new int[size];
+        final boolean[] onStack = new boolean[size];
+        final int[] stack = new int[size];
+        final int[] callStack = new int[size];
+        final int[] nextSuccessor = new int[size];
+        int stackSize = 0;
+        int nextIndex = 1;
+        int components = 0;
+
+        Arrays.fill(index, 0);
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != 0) {
+                continue;
+            }
+
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (callStackSize > 0) {
+                final int current = callStack[callStackSize - 1];
+
+                if (nextSuccessor[current] < this.successors[current].length) {
+                    final int successor = this.successors[current][nextSuccessor[current]++];
+
+                    if (index[successor] == 0) {
+                        index[successor] = lowLink[successor] = nextIndex++;
+                        stack[stackSize++] = successor;
+                        onStack[successor] = true;
+                        callStack[callStackSize++] = successor;
+                    } else if (onStack[successor]) {
+                        lowLink[current] = Math.min(lowLink[current], index[successor]);
+                    }
+                } else {
+                    callStackSize--;
+
+                    if (callStackSize > 0) {
+                        final int caller = callStack[callStackSize - 1];
+                        lowLink[caller] = Math.min(lowLink[caller], lowLink[current]);
+                    }
+
+                    if (lowLink[current] == index[current]) {
+                        int member;
+
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            this.componentOf[member] = components;
+                        } while (member != current);
+
+                        components++;
+                    }
+                }
+            }
+        }
+
+        return components;
+    }
+
+    int getComponentCount() {
+        return this.componentCount;
+    }
+
+    int getComponentOf(int process) {
+        return this.componentOf[process];
+    }
+
+    /**
+     * the processes with producers before consumers - the components are
+     * ordered topologically, ties (and the members of a component) keep the
+     * original order
+     */
+    List<ScheduledProcess> getTopologicalOrder() {
+        final int size = this.processes.size();
+        final int[] firstMember = new int[this.componentCount];
+        final int[] incomingEdges = new int[this.componentCount];
+        final List<List<Integer>> members = new ArrayList<List<Integer>>();
+
+        Arrays.fill(firstMember, Integer.MAX_VALUE);
+        for (int i = 0; i < this.componentCount; i++) {
+            members.add(new ArrayList<Integer>());
+        }
+
+        for (int process = 0; process < size; process++) {
+            final int component = this.componentOf[process];
+
+            firstMember[component] = Math.min(firstMember[component], process);
+            members.get(component).add(process);
+
+            for (int successor : this.successors[process]) {
+                if (this.componentOf[successor] != component) {
+                    incomingEdges[this.componentOf[successor]]++;
+                }
+            }
+        }
+
+        // Kahn's algorithm on the components, the component with the
+        // earliest added process is taken first
+        final PriorityQueue<Integer> ready = new PriorityQueue<Integer>(Math.max(1, this.componentCount),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer first, Integer second) {
+                        return Integer.compare(firstMember[first], firstMember[second]);
+                    }
+                });
+        final List<ScheduledProcess> order = new ArrayList<ScheduledProcess>(size);
+
+        for (int component = 0; component < this.componentCount; component++) {
+            if (incomingEdges[component] == 0) {
+                ready.add(component);
+            }
+        }
+
+        while (!ready.isEmpty()) {
+            final int component = ready.poll();
+
+            for (int process : members.get(component)) {
+                order.add(this.processes.get(process));
+
+                for (int successor : this.successors[process]) {
+                    final int successorComponent = this.componentOf[successor];
+
+                    if ((successorComponent != component) && (--incomingEdges[successorComponent] == 0)) {
+                        ready.add(successorComponent);
+                    }
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(order);
+    }
+}
@@ -0,0 +1,31 @@
+package net.matthiasauer.stwp4j;
+
+public final class ProcessMetrics {
+    private final String name;
+    private final Histogram executeTimes = new Histogram();
+
+    ProcessMetrics(String name) {
+        this.name = name;
+    }
+
+    void recordExecution(long nanos) {
+        this.executeTimes.record(nanos);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getExecutions() {
+        return this.executeTimes.getCount();
+    }
+
+    public long getTotalExecuteTime() {
+        return this.executeTimes.getTotal();
+    }
+
+    // in nanoseconds
+    public Histogram getExecuteTimes() {
+        return this.executeTimes;
+    }
+}
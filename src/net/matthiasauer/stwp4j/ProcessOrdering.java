@@ -0,0 +1,10 @@
+package net.matthiasauer.stwp4j;
+
+public enum ProcessOrdering {
+    // the processes are executed in the order in which they were added
+    Registration,
+    // producers are executed before their consumers (derived from the ports
+    // given to Scheduler.addProcess) - processes in a cycle and processes
+    // without a dependency keep the order in which they were added
+    Topological
+}
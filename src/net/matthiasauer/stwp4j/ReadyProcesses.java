@@ -0,0 +1,38 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.List;
+
+/**
+ * the processes of a frozen scheduler which have to be executed in the
+ * next sub-iteration, by their index in the execution plan - only used by
+ * the thread executing the scheduler
+ */
+final class ReadyProcesses {
+    private final long[] words;
+
+    ReadyProcesses(int processes) {
+        this.words = new long[(processes + 63) >>> 6];
+    }
+
+    void add(int index) {
+        this.words[index >>> 6] |= 1L << index;
+    }
+
+    // moves the ready processes to the target in the order of the plan
+    void drainTo(ScheduledProcess[] processes, List<ScheduledProcess> target) {
+        for (int i = 0; i < this.words.length; i++) {
+            long word = this.words[i];
+
+            if (word == 0) {
+                continue;
+            }
+
+            this.words[i] = 0;
+
+            while (word != 0) {
+                target.add(processes[(i << 6) + Long.numberOfTrailingZeros(word)]);
+                word &= word - 1;
+            }
+        }
+    }
+}
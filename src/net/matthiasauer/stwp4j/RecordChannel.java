@@ -0,0 +1,41 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * channel for fixed size records which are stored off-heap - the
+ * messages are written and read with flyweights instead of objects
+ */
+public class RecordChannel extends AbstractChannel<ByteBuffer, RecordChannelInPort, RecordChannelOutPort> {
+    private final RecordLayout layout;
+
+    RecordChannel(InputPortType inputType, String id, RecordLayout layout, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, ChannelCapacity capacity) {
+        super(inputType, id, mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity);
+        this.layout = layout;
+    }
+
+    public RecordLayout getLayout() {
+        return this.layout;
+    }
+
+    @Override
+    Class<ByteBuffer> getMessageType() {
+        return ByteBuffer.class;
+    }
+
+    @Override
+    RingBuffer<ByteBuffer> newBuffer() {
+        return new RecordRingBuffer(this.layout.getSize());
+    }
+
+    @Override
+    RecordChannelOutPort newOutPort(RingBuffer<ByteBuffer> buffer, ChannelCapacity capacity) {
+        return new RecordChannelOutPort((RecordRingBuffer) buffer, capacity);
+    }
+
+    @Override
+    RecordChannelInPort newInPort(RingBuffer<ByteBuffer> buffer, boolean shared) {
+        return new RecordChannelInPort((RecordRingBuffer) buffer, shared);
+    }
+}
@@ -0,0 +1,67 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+
+public final class RecordChannelInPort extends ChannelPort<ByteBuffer> {
+    private final RecordRingBuffer messages;
+    private final boolean shared;
+    private final RecordReader reader = new RecordReader();
+
+    RecordChannelInPort(RecordRingBuffer messages, boolean shared) {
+        super(ByteBuffer.class);
+        this.messages = messages;
+        this.shared = shared;
+    }
+
+    public boolean isEmpty() {
+        if (this.shared) {
+            synchronized (this.messages) {
+                return this.messages.isEmpty();
+            }
+        }
+
+        return this.messages.isEmpty();
+    }
+
+    /**
+     * returns the reader for the next record or null if there is none -
+     * the reader is valid until the next call or the end of the
+     * sub-iteration
+     */
+    public RecordReader poll() {
+        if (this.shared) {
+            // the processes owning the shared InPorts might run concurrently
+            synchronized (this.messages) {
+                return this.pollRecord();
+            }
+        }
+
+        return this.pollRecord();
+    }
+
+    private RecordReader pollRecord() {
+        if (this.messages.isEmpty()) {
+            return null;
+        }
+
+        final int position = this.messages.remove();
+        this.reader.wrap(this.messages.getStorage(), position);
+
+        return this.reader;
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return true;
+    }
+
+    @Override
+    boolean hasMessages() {
+        return !this.isEmpty();
+    }
+}
@@ -0,0 +1,42 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+
+public final class RecordChannelOutPort extends ChannelPort<ByteBuffer> {
+    private final RecordRingBuffer messages;
+    private final ChannelCapacity capacity;
+    private final RecordWriter writer = new RecordWriter();
+
+    RecordChannelOutPort(RecordRingBuffer messages, ChannelCapacity capacity) {
+        super(ByteBuffer.class);
+        this.messages = messages;
+        this.capacity = capacity;
+    }
+
+    /**
+     * appends a record and returns the writer for it - the writer is only
+     * valid until the next call, returns null if the channel is full
+     */
+    public RecordWriter append() {
+        this.markDirty();
+
+        if ((this.capacity != null) && !this.capacity.tryAcquire(1, this)) {
+            return null;
+        }
+
+        final int position = this.messages.append();
+        this.writer.wrap(this.messages.getStorage(), position);
+
+        return this.writer;
+    }
+
+    @Override
+    RingBuffer<?> getBuffer() {
+        return this.messages;
+    }
+
+    @Override
+    boolean isInPort() {
+        return false;
+    }
+}
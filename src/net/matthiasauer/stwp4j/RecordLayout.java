@@ -0,0 +1,52 @@
+package net.matthiasauer.stwp4j;
+
+/**
+ * the fields of the fixed size records of a RecordChannel - each add
+ * method returns the offset of the field within the record, which is used
+ * to access the field with a RecordWriter or RecordReader
+ */
+public final class RecordLayout {
+    private int size = 0;
+    private int alignment = 1;
+    private boolean used = false;
+
+    public int addInt() {
+        return this.add(4);
+    }
+
+    public int addLong() {
+        return this.add(8);
+    }
+
+    public int addDouble() {
+        return this.add(8);
+    }
+
+    private int add(int bytes) {
+        if (this.used) {
+            throw new IllegalStateException("the layout is already used by a channel and can't be changed");
+        }
+
+        // fields are aligned to their size
+        final int offset = (this.size + bytes - 1) & -bytes;
+
+        this.size = offset + bytes;
+        this.alignment = Math.max(this.alignment, bytes);
+
+        return offset;
+    }
+
+    // the size of a record in bytes - including the padding needed to
+    // align the fields of consecutive records
+    public int getSize() {
+        return (this.size + this.alignment - 1) & -this.alignment;
+    }
+
+    void use() {
+        if (this.size == 0) {
+            throw new IllegalArgumentException("the layout has no fields");
+        }
+
+        this.used = true;
+    }
+}
@@ -0,0 +1,29 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * flyweight for reading the record polled last from a RecordChannelInPort
+ * - the offsets are the ones returned by the RecordLayout
+ */
+public final class RecordReader {
+    private ByteBuffer storage = null;
+    private int position = 0;
+
+    void wrap(ByteBuffer storage, int position) {
+        this.storage = storage;
+        this.position = position;
+    }
+
+    public int getInt(int offset) {
+        return this.storage.getInt(this.position + offset);
+    }
+
+    public long getLong(int offset) {
+        return this.storage.getLong(this.position + offset);
+    }
+
+    public double getDouble(int offset) {
+        return this.storage.getDouble(this.position + offset);
+    }
+}
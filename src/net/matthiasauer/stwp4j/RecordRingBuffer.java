@@ -0,0 +1,63 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * ring buffer of fixed size records stored off-heap - an element of the
+ * ring buffer is a record of recordSize bytes
+ */
+final class RecordRingBuffer extends RingBuffer<ByteBuffer> {
+    private final int recordSize;
+
+    RecordRingBuffer(int recordSize) {
+        super(allocate(INITIAL_CAPACITY, recordSize));
+        this.recordSize = recordSize;
+    }
+
+    private static ByteBuffer allocate(int capacity, int recordSize) {
+        return ByteBuffer.allocateDirect(capacity * recordSize).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    protected ByteBuffer allocate(int capacity) {
+        return allocate(capacity, this.recordSize);
+    }
+
+    @Override
+    protected void release(int from, int to) {
+        // nothing to release
+    }
+
+    @Override
+    protected void copy(ByteBuffer source, int sourceIndex, ByteBuffer target, int targetIndex, int length) {
+        if (length == 0) {
+            return;
+        }
+
+        // only used while no flyweight reads or writes the storages, the
+        // flyweights use absolute positions anyway
+        source.limit((sourceIndex + length) * this.recordSize);
+        source.position(sourceIndex * this.recordSize);
+        target.position(targetIndex * this.recordSize);
+        target.put(source);
+        source.clear();
+        target.clear();
+    }
+
+    ByteBuffer getStorage() {
+        return this.elements;
+    }
+
+    // appends a record and returns its position in the storage
+    int append() {
+        // the index has to be determined first - it might grow the storage
+        return this.appendIndex() * this.recordSize;
+    }
+
+    // removes the first record and returns its position in the storage -
+    // the storage keeps the record until the next forwarding
+    int remove() {
+        return this.removeIndex() * this.recordSize;
+    }
+}
@@ -0,0 +1,32 @@
+package net.matthiasauer.stwp4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * flyweight for writing the record appended last to a RecordChannelOutPort
+ * - the offsets are the ones returned by the RecordLayout
+ */
+public final class RecordWriter {
+    private ByteBuffer storage = null;
+    private int position = 0;
+
+    void wrap(ByteBuffer storage, int position) {
+        this.storage = storage;
+        this.position = position;
+    }
+
+    public RecordWriter putInt(int offset, int value) {
+        this.storage.putInt(this.position + offset, value);
+        return this;
+    }
+
+    public RecordWriter putLong(int offset, long value) {
+        this.storage.putLong(this.position + offset, value);
+        return this;
+    }
+
+    public RecordWriter putDouble(int offset, double value) {
+        this.storage.putDouble(this.position + offset, value);
+        return this;
+    }
+}
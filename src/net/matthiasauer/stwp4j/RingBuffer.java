@@ -0,0 +1,244 @@
+package net.matthiasauer.stwp4j;
+
+/**
+ * growable FIFO ring buffer on top of an array of type A - the storage is
+ * only ever grown, never shrunk, so once a buffer has grown to the size
+ * needed by the traffic it doesn't allocate anymore
+ */
+abstract class RingBuffer<A> {
+    protected static final int INITIAL_CAPACITY = 16;
+    protected A elements;
+    private int mask;
+    private int head = 0;
+    private int size = 0;
+    // views only read the storage of another buffer - they must neither
+    // release nor add elements
+    private boolean view = false;
+
+    protected RingBuffer() {
+        this.elements = this.allocate(INITIAL_CAPACITY);
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    // for subclasses which can't allocate before they are initialized
+    protected RingBuffer(A elements) {
+        this.elements = elements;
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    protected abstract A allocate(int capacity);
+
+    // copies length elements between two distinct storages
+    protected void copy(A source, int sourceIndex, A target, int targetIndex, int length) {
+        System.arraycopy(source, sourceIndex, target, targetIndex, length);
+    }
+
+    // called for ranges of elements that are not used anymore
+    protected abstract void release(int from, int to);
+
+    // releases the range unless the storage belongs to another buffer
+    protected final void discard(int from, int to) {
+        if (!this.view) {
+            this.release(from, to);
+        }
+    }
+
+    public final int size() {
+        return this.size;
+    }
+
+    public final boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    // returns the index of the element that has to be appended
+    protected final int appendIndex() {
+        if (this.size > this.mask) {
+            this.grow(this.size + 1);
+        }
+
+        return (this.head + this.size++) & this.mask;
+    }
+
+    // returns the index of the first element and removes it
+    protected final int removeIndex() {
+        final int index = this.head;
+
+        this.head = (this.head + 1) & this.mask;
+        this.size--;
+
+        return index;
+    }
+
+    protected final int headIndex() {
+        return this.head;
+    }
+
+    // the index of the element at the given position (0 is the first one)
+    protected final int indexOf(int position) {
+        return (this.head + position) & this.mask;
+    }
+
+    protected final void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > this.mask + 1) {
+            this.grow(minimumCapacity);
+        }
+    }
+
+    private void grow(int minimumCapacity) {
+        int capacity = this.mask + 1;
+
+        while (capacity < minimumCapacity) {
+            capacity <<= 1;
+        }
+
+        A grown = this.allocate(capacity);
+        this.copyTo(grown, 0, this.size);
+        this.elements = grown;
+        this.mask = capacity - 1;
+        this.head = 0;
+    }
+
+    // copies the first count elements (in FIFO order) into the array
+    private void copyTo(A target, int targetIndex, int count) {
+        final int firstPart = Math.min(count, this.mask + 1 - this.head);
+
+        this.copy(this.elements, this.head, target, targetIndex, firstPart);
+        this.copy(this.elements, 0, target, targetIndex + firstPart, count - firstPart);
+    }
+
+    public final void clear() {
+        final int firstPart = Math.min(this.size, this.mask + 1 - this.head);
+
+        this.discard(this.head, this.head + firstPart);
+        this.discard(0, this.size - firstPart);
+        this.head = 0;
+        this.size = 0;
+    }
+
+    // appends length elements of the array, starting at offset
+    public final void addAll(A source, int offset, int length) {
+        this.ensureCapacity(this.size + length);
+
+        final int tail = (this.head + this.size) & this.mask;
+        final int firstPart = Math.min(length, this.mask + 1 - tail);
+
+        this.copy(source, offset, this.elements, tail, firstPart);
+        this.copy(source, offset + firstPart, this.elements, 0, length - firstPart);
+        this.size += length;
+    }
+
+    // removes up to maxLength elements and copies them to the array,
+    // returns the number of removed elements
+    public final int removeTo(A target, int offset, int maxLength) {
+        final int count = Math.min(this.size, maxLength);
+        final int firstPart = Math.min(count, this.mask + 1 - this.head);
+
+        this.copyTo(target, offset, count);
+        this.discard(this.head, this.head + firstPart);
+        this.discard(0, count - firstPart);
+        this.head = (this.head + count) & this.mask;
+        this.size -= count;
+
+        return count;
+    }
+
+    // removes the first count elements
+    final void skip(int count) {
+        final int firstPart = Math.min(count, this.mask + 1 - this.head);
+
+        this.discard(this.head, this.head + firstPart);
+        this.discard(0, count - firstPart);
+        this.head = (this.head + count) & this.mask;
+        this.size -= count;
+    }
+
+    // turns this buffer into a view of count elements of the source,
+    // starting at the given offset - valid until the source is modified
+    final void showRange(RingBuffer<A> source, int offset, int count) {
+        this.elements = source.elements;
+        this.mask = source.mask;
+        this.head = (source.head + offset) & source.mask;
+        this.size = count;
+        this.view = true;
+    }
+
+    // appends all elements of the source to this buffer
+    public final void addAll(RingBuffer<A> source) {
+        this.addRange(source, 0, source.size);
+    }
+
+    // appends count elements of the source, starting at the given position
+    // (0 is the first element)
+    private void addRange(RingBuffer<A> source, int position, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        this.ensureCapacity(this.size + count);
+
+        final int tail = (this.head + this.size) & this.mask;
+        int copied = 0;
+
+        // both buffers might wrap around - so this takes at most 3 copies
+        while (copied < count) {
+            final int from = (source.head + position + copied) & source.mask;
+            final int to = (tail + copied) & this.mask;
+            final int chunk = Math.min(count - copied, Math.min(source.mask + 1 - from, this.mask + 1 - to));
+
+            this.copy(source.elements, from, this.elements, to, chunk);
+            copied += chunk;
+        }
+
+        this.size += count;
+    }
+
+    // removes the last count elements
+    final void removeLast(int count) {
+        final int start = (this.head + this.size - count) & this.mask;
+        final int firstPart = Math.min(count, this.mask + 1 - start);
+
+        this.discard(start, start + firstPart);
+        this.discard(0, count - firstPart);
+        this.size -= count;
+    }
+
+    // moves the first count elements to the end of the target
+    final void moveFirstTo(RingBuffer<A> target, int count) {
+        target.addRange(this, 0, count);
+        this.skip(count);
+    }
+
+    // moves the last count elements (keeping their order) to the end of
+    // the target
+    final void moveLastTo(RingBuffer<A> target, int count) {
+        target.addRange(this, this.size - count, count);
+        this.removeLast(count);
+    }
+
+    // moves all elements to the end of the target - if the target is empty
+    // the buffers simply exchange their storage instead of copying
+    public final void drainTo(RingBuffer<A> target) {
+        if (this.isEmpty()) {
+            return;
+        }
+
+        if (target.isEmpty()) {
+            final A elements = target.elements;
+            final int mask = target.mask;
+
+            target.elements = this.elements;
+            target.mask = this.mask;
+            target.head = this.head;
+            target.size = this.size;
+
+            this.elements = elements;
+            this.mask = mask;
+            this.head = 0;
+            this.size = 0;
+        } else {
+            target.addAll(this);
+            this.clear();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.matthiasauer.stwp4j;
+
+/**
+ * snapshot of the statistics of a scheduler running at a fixed rate, all
+ * times are in nanoseconds - jitter is how late an iteration started
+ * compared to its tick
+ */
+public final class RunStatistics {
+    private final long iterations;
+    private final long overruns;
+    private final long skippedTicks;
+    private final long minimumLatency;
+    private final long maximumLatency;
+    private final long totalLatency;
+    private final long maximumJitter;
+    private final long totalJitter;
+
+    RunStatistics(long iterations, long overruns, long skippedTicks, long minimumLatency, long maximumLatency,
+            long totalLatency, long maximumJitter, long totalJitter) {
+        this.iterations = iterations;
+        this.overruns = overruns;
+        this.skippedTicks = skippedTicks;
+        this.minimumLatency = minimumLatency;
+        this.maximumLatency = maximumLatency;
+        this.totalLatency = totalLatency;
+        this.maximumJitter = maximumJitter;
+        this.totalJitter = totalJitter;
+    }
+
+    public long getIterations() {
+        return this.iterations;
+    }
+
+    public long getOverruns() {
+        return this.overruns;
+    }
+
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+
+    public long getMinimumLatency() {
+        return this.minimumLatency;
+    }
+
+    public long getMaximumLatency() {
+        return this.maximumLatency;
+    }
+
+    public long getMeanLatency() {
+        return (this.iterations == 0) ? 0 : (this.totalLatency / this.iterations);
+    }
+
+    public long getMaximumJitter() {
+        return this.maximumJitter;
+    }
+
+    public long getMeanJitter() {
+        return (this.iterations == 0) ? 0 : (this.totalJitter / this.iterations);
+    }
+
+    @Override
+    public String toString() {
+        return "RunStatistics [iterations=" + this.iterations + ", overruns=" + this.overruns + ", skippedTicks="
+                + this.skippedTicks + ", minimumLatency=" + this.minimumLatency + ", maximumLatency="
+                + this.maximumLatency + ", meanLatency=" + this.getMeanLatency() + ", maximumJitter="
+                + this.maximumJitter + ", meanJitter=" + this.getMeanJitter() + "]";
+    }
+}
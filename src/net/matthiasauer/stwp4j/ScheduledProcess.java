@@ -0,0 +1,100 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+final class ScheduledProcess implements Callable<Void> {
+    private final LightweightProcess process;
+    private final List<ChannelPort<?>> inPorts = new ArrayList<ChannelPort<?>>();
+    private final List<ChannelPort<?>> outPorts = new ArrayList<ChannelPort<?>>();
+    private boolean ready = false;
+    private ProcessMetrics metrics = null;
+    // only set once the scheduler has been frozen
+    private ReadyProcesses readyProcesses = null;
+    private int index = 0;
+
+    ScheduledProcess(LightweightProcess process) {
+        this.process = process;
+    }
+
+    LightweightProcess getProcess() {
+        return this.process;
+    }
+
+    void addInPort(ChannelPort<?> inPort) {
+        this.inPorts.add(inPort);
+    }
+
+    void addOutPort(ChannelPort<?> outPort) {
+        this.outPorts.add(outPort);
+    }
+
+    List<ChannelPort<?>> getOutPorts() {
+        return this.outPorts;
+    }
+
+    // processes without InPorts are sources - they have to run in each
+    // sub-iteration, all others only if they have been woken up
+    boolean isAlwaysRun() {
+        return this.inPorts.isEmpty();
+    }
+
+    void setMetrics(ProcessMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // the index of the process in the execution plan
+    void setReadyProcesses(ReadyProcesses readyProcesses, int index) {
+        this.readyProcesses = readyProcesses;
+        this.index = index;
+        this.requeue();
+    }
+
+    void wakeUp() {
+        this.ready = true;
+
+        if (this.readyProcesses != null) {
+            this.readyProcesses.add(this.index);
+        }
+    }
+
+    // called by the thread executing the scheduler once the process has
+    // been executed - it stays ready if it left messages in its InPorts
+    void requeue() {
+        if (this.ready) {
+            this.wakeUp();
+        }
+    }
+
+    boolean isDue() {
+        return this.ready || this.isAlwaysRun() || this.process.isPending();
+    }
+
+    void execute() {
+        this.ready = false;
+
+        if (this.metrics == null) {
+            this.process.execute();
+        } else {
+            final long start = System.nanoTime();
+            this.process.execute();
+            this.metrics.recordExecution(System.nanoTime() - start);
+        }
+
+        // messages left in the InPorts have to be handled in a later
+        // sub-iteration, even if nothing new arrives
+        for (int i = 0; i < this.inPorts.size(); i++) {
+            if (this.inPorts.get(i).hasMessages()) {
+                this.ready = true;
+                break;
+            }
+        }
+    }
+
+    @Override
+    public Void call() {
+        this.execute();
+        return null;
+    }
+}
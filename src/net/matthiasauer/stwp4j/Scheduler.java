@@ -1,92 +1,738 @@
-package net.matthiasauer.stwp4j;
-
-import java.util.HashSet;
-import java.util.Set;
-
-public class Scheduler {
-    private static int instanceCounter = 0;
-    private final int id = (instanceCounter++);
-    private final Set<LightweightProcess> processes = new HashSet<LightweightProcess>();
-    private final Set<Channel<?>> channels = new HashSet<Channel<?>>();
-
-    public void addProcess(LightweightProcess lightweightProcess) {
-        if (this.processes.contains(lightweightProcess)) {
-            throw new IllegalArgumentException(
-                    this.id + " | process already added to the scheduler, process : " + lightweightProcess);
-        }
-
-        this.processes.add(lightweightProcess);
-    }
-
-    public <T> Channel<T> createSharedChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
-            boolean allowMessagesWithoutHavingInPorts) {
-        Channel<T> channel = new Channel<T>(InputPortType.Shared, id, messageType, mustBeEmptyAfterEachIteration,
-                allowMessagesWithoutHavingInPorts);
-
-        this.channels.add(channel);
-
-        return channel;
-    }
-
-    public <T> Channel<T> createMultiplexChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
-            boolean allowMessagesWithoutHavingInPorts) {
-        Channel<T> channel = new Channel<T>(InputPortType.Multiplex, id, messageType, mustBeEmptyAfterEachIteration,
-                allowMessagesWithoutHavingInPorts);
-
-        this.channels.add(channel);
-
-        return channel;
-    }
-    
-    private int forwardMessages() {
-        int forwardedMessages = 0;
-        
-        for (Channel<?> channel : this.channels) {
-            forwardedMessages += channel.forwardMessages();
-        }
-        
-        return forwardedMessages;
-    }
-
-    public void performIteration() {
-        // PRE-ITERATION
-        for (LightweightProcess process : this.processes) {
-            // and execute the preIteration methods
-            process.preIteration();
-        }
-        
-        // forward messages from PRE-iteration
-        this.forwardMessages();
-
-        // repeat until the iteration has ended
-        boolean performSubIteration = true;
-
-        while (performSubIteration) {
-            performSubIteration = false;
-
-            // execute the LightweightProcesses
-            for (LightweightProcess process : this.processes) {
-
-                // EXECUTE
-                process.execute();
-            }
-
-            // forward messages and check whether anything was forwarded
-            final int forwardedMessages = forwardMessages();
-
-            performSubIteration = (forwardedMessages != 0);
-        }
-
-        // POST-ITERATION
-        for (LightweightProcess process : this.processes) {
-            process.postIteration();
-        }
-
-        // POST-ITERATION channel checks
-        for (Channel<?> channel : this.channels) {
-            channel.performPostIterationCheck();
-        }
-        
-        this.forwardMessages();
-    }
-}
+package net.matthiasauer.stwp4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class Scheduler {
+    private static int instanceCounter = 0;
+    private final int id = (instanceCounter++);
+    // the processes in the order in which they were added - the map is
+    // only used to detect processes that are added twice
+    private final List<ScheduledProcess> processes = new ArrayList<ScheduledProcess>();
+    private final Map<LightweightProcess, ScheduledProcess> processLookup = new HashMap<LightweightProcess, ScheduledProcess>();
+    // the compiled processes - null if it has to be recalculated, never
+    // changes anymore once the scheduler has been frozen
+    private ExecutionPlan executionPlan = null;
+    private boolean frozen = false;
+    // the woken up processes - only tracked once the scheduler is frozen,
+    // before that each process is asked whether it is due
+    private ReadyProcesses readyProcesses = null;
+    private ProcessOrdering processOrdering = ProcessOrdering.Registration;
+    private final List<ScheduledProcess> dueProcesses = new ArrayList<ScheduledProcess>();
+    private final List<AbstractChannel<?, ?, ?>> channels = new ArrayList<AbstractChannel<?, ?, ?>>();
+    private final ExecutorService executor;
+    private FixedRateRunner runner = null;
+    private volatile SchedulerMetrics metrics = null;
+    private JournalRecorder journal = null;
+    // channels with messages to forward - guarded by dirtyChannelsLock
+    private final Object dirtyChannelsLock = new Object();
+    private List<AbstractChannel<?, ?, ?>> dirtyChannels = new ArrayList<AbstractChannel<?, ?, ?>>();
+    private List<AbstractChannel<?, ?, ?>> forwardedChannels = new ArrayList<AbstractChannel<?, ?, ?>>();
+    // channels that have to be empty at the end of the iteration and
+    // received messages during it
+    private final List<Channel<?>> pooledChannels = new ArrayList<Channel<?>>();
+    private final List<AbstractChannel<?, ?, ?>> deliveredChannels = new ArrayList<AbstractChannel<?, ?, ?>>();
+
+    public Scheduler() {
+        this(null);
+    }
+
+    /**
+     * if an executor is given, the processes of each sub-iteration are
+     * executed concurrently on it - the scheduler doesn't shut it down.
+     * Only the InPorts of Shared channels may then be used by several
+     * processes, each OutPort and each Multiplex, work stealing or
+     * partitioned InPort must only be used by a single process as they
+     * aren't thread-safe
+     */
+    public Scheduler(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * the given ports are owned by the process - if any of them is an InPort
+     * the process is only executed in sub-iterations in which its InPorts
+     * hold messages, otherwise it is executed in every sub-iteration
+     */
+    public void addProcess(LightweightProcess lightweightProcess, ChannelPort<?>... ports) {
+        this.checkNotFrozen();
+
+        if (this.processLookup.containsKey(lightweightProcess)) {
+            throw new IllegalArgumentException(
+                    this.id + " | process already added to the scheduler, process : " + lightweightProcess);
+        }
+
+        ScheduledProcess scheduledProcess = new ScheduledProcess(lightweightProcess);
+
+        for (ChannelPort<?> port : ports) {
+            port.setOwner(scheduledProcess);
+
+            if (port.isInPort()) {
+                scheduledProcess.addInPort(port);
+            } else {
+                scheduledProcess.addOutPort(port);
+            }
+        }
+
+        if (this.metrics != null) {
+            scheduledProcess.setMetrics(this.metrics.createProcessMetrics(lightweightProcess.toString()));
+        }
+
+        this.processLookup.put(lightweightProcess, scheduledProcess);
+        this.processes.add(scheduledProcess);
+        this.executionPlan = null;
+    }
+
+    /**
+     * defines the order in which the processes are executed within each
+     * sub-iteration, Registration by default
+     */
+    public void setProcessOrdering(ProcessOrdering processOrdering) {
+        this.checkNotFrozen();
+
+        if (processOrdering == null) {
+            throw new IllegalArgumentException(this.id + " | processOrdering must not be null");
+        }
+
+        this.processOrdering = processOrdering;
+        this.executionPlan = null;
+    }
+
+    public ProcessOrdering getProcessOrdering() {
+        return this.processOrdering;
+    }
+
+    // recompiled after each change until the scheduler is frozen
+    ExecutionPlan getExecutionPlan() {
+        if (this.executionPlan == null) {
+            this.executionPlan = new ExecutionPlan(this.processOrdering, this.processes);
+        }
+
+        return this.executionPlan;
+    }
+
+    /**
+     * validates the channels and compiles the processes into the final
+     * execution plan - afterwards no processes, channels or ports (except
+     * external OutPorts) can be added and the ordering can't be changed,
+     * in return each sub-iteration only visits the processes which have to
+     * be executed
+     */
+    public ExecutionPlan freeze() {
+        if (!this.frozen) {
+            for (int i = 0; i < this.channels.size(); i++) {
+                this.channels.get(i).validate();
+            }
+
+            final ScheduledProcess[] processes = this.getExecutionPlan().getProcesses();
+            this.readyProcesses = new ReadyProcesses(processes.length);
+
+            for (int i = 0; i < processes.length; i++) {
+                processes[i].setReadyProcesses(this.readyProcesses, i);
+            }
+
+            this.frozen = true;
+        }
+
+        return this.getExecutionPlan();
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException(this.id + " | scheduler has been frozen");
+        }
+    }
+
+    public <T> Channel<T> createSharedChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new Channel<T>(InputPortType.Shared, id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts));
+    }
+
+    /**
+     * the OutPorts of the channel reject messages as long as the channel
+     * holds capacity messages
+     */
+    public <T> Channel<T> createSharedChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new Channel<T>(InputPortType.Shared, id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    /**
+     * the messages of the channel are acquired from its MessagePool and
+     * returned to it at the end of each iteration in which they have been
+     * consumed
+     */
+    public <T> Channel<T> createSharedChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, MessageFactory<T> messageFactory) {
+        return this.registerPooled(new Channel<T>(InputPortType.Shared, id, messageType,
+                mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, null,
+                new MessagePool<T>(messageFactory)));
+    }
+
+    public <T> Channel<T> createMultiplexChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new Channel<T>(InputPortType.Multiplex, id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts));
+    }
+
+    /**
+     * the OutPorts of the channel reject messages as long as the channel
+     * holds capacity messages
+     */
+    public <T> Channel<T> createMultiplexChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new Channel<T>(InputPortType.Multiplex, id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    /**
+     * the messages of the channel are acquired from its MessagePool and
+     * returned to it at the end of each iteration in which all InPorts have
+     * consumed them
+     */
+    public <T> Channel<T> createMultiplexChannel(String id, Class<T> messageType, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, MessageFactory<T> messageFactory) {
+        return this.registerPooled(new Channel<T>(InputPortType.Multiplex, id, messageType,
+                mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, null,
+                new MessagePool<T>(messageFactory)));
+    }
+
+    /**
+     * each InPort of the channel receives its share of the messages, InPorts
+     * without messages steal from the others - balances the work of
+     * processes executed concurrently
+     */
+    public <T> Channel<T> createWorkStealingChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new Channel<T>(InputPortType.WorkStealing, id, messageType,
+                mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts));
+    }
+
+    public <T> Channel<T> createWorkStealingChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new Channel<T>(InputPortType.WorkStealing, id, messageType,
+                mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    /**
+     * each message is handled by the InPort selected by the hash of its key
+     * - the messages of a key keep their order, the InPorts have to be
+     * created before the first message is forwarded
+     */
+    public <T> Channel<T> createPartitionedChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts,
+            KeyExtractor<? super T> keyExtractor) {
+        return this.createPartitionedChannel(id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, keyExtractor, null);
+    }
+
+    public <T> Channel<T> createPartitionedChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts,
+            KeyExtractor<? super T> keyExtractor, int capacity) {
+        return this.createPartitionedChannel(id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, keyExtractor, new ChannelCapacity(capacity));
+    }
+
+    private <T> Channel<T> createPartitionedChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts,
+            KeyExtractor<? super T> keyExtractor, ChannelCapacity capacity) {
+        if (keyExtractor == null) {
+            throw new IllegalArgumentException(this.id + " | keyExtractor must not be null");
+        }
+
+        return this.register(new Channel<T>(InputPortType.Partitioned, id, messageType,
+                mustBeEmptyAfterEachIteration, allowMessagesWithoutHavingInPorts, capacity, null, keyExtractor));
+    }
+
+    /**
+     * shared channel whose InPorts only receive the latest message of each
+     * key - older messages of a key still waiting in the InPorts are
+     * replaced when the channel forwards
+     */
+    public <T> Channel<T> createConflatingChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts,
+            KeyExtractor<? super T> keyExtractor) {
+        if (keyExtractor == null) {
+            throw new IllegalArgumentException(this.id + " | keyExtractor must not be null");
+        }
+
+        return this.register(new Channel<T>(InputPortType.Shared, id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null, null, keyExtractor, true));
+    }
+
+    /**
+     * shared channel whose InPorts only receive the latest message
+     */
+    public <T> Channel<T> createConflatingChannel(String id, Class<T> messageType,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new Channel<T>(InputPortType.Shared, id, messageType, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null, null, null, true));
+    }
+
+    public IntChannel createSharedIntChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new IntChannel(InputPortType.Shared, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null));
+    }
+
+    public IntChannel createSharedIntChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new IntChannel(InputPortType.Shared, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    public IntChannel createMultiplexIntChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new IntChannel(InputPortType.Multiplex, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null));
+    }
+
+    public IntChannel createMultiplexIntChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new IntChannel(InputPortType.Multiplex, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    public LongChannel createSharedLongChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new LongChannel(InputPortType.Shared, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null));
+    }
+
+    public LongChannel createSharedLongChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new LongChannel(InputPortType.Shared, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    public LongChannel createMultiplexLongChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new LongChannel(InputPortType.Multiplex, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null));
+    }
+
+    public LongChannel createMultiplexLongChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new LongChannel(InputPortType.Multiplex, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    public DoubleChannel createSharedDoubleChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new DoubleChannel(InputPortType.Shared, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null));
+    }
+
+    public DoubleChannel createSharedDoubleChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new DoubleChannel(InputPortType.Shared, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    public DoubleChannel createMultiplexDoubleChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts) {
+        return this.register(new DoubleChannel(InputPortType.Multiplex, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null));
+    }
+
+    public DoubleChannel createMultiplexDoubleChannel(String id, boolean mustBeEmptyAfterEachIteration,
+            boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.register(new DoubleChannel(InputPortType.Multiplex, id, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity)));
+    }
+
+    /**
+     * the records of the channel are stored off-heap, the layout can't be
+     * changed anymore once the channel has been created
+     */
+    public RecordChannel createSharedRecordChannel(String id, RecordLayout layout,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        return this.createRecordChannel(InputPortType.Shared, id, layout, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null);
+    }
+
+    public RecordChannel createSharedRecordChannel(String id, RecordLayout layout,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.createRecordChannel(InputPortType.Shared, id, layout, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity));
+    }
+
+    public RecordChannel createMultiplexRecordChannel(String id, RecordLayout layout,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        return this.createRecordChannel(InputPortType.Multiplex, id, layout, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, null);
+    }
+
+    public RecordChannel createMultiplexRecordChannel(String id, RecordLayout layout,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts, int capacity) {
+        return this.createRecordChannel(InputPortType.Multiplex, id, layout, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, new ChannelCapacity(capacity));
+    }
+
+    private RecordChannel createRecordChannel(InputPortType inputType, String id, RecordLayout layout,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts,
+            ChannelCapacity capacity) {
+        layout.use();
+
+        return this.register(new RecordChannel(inputType, id, layout, mustBeEmptyAfterEachIteration,
+                allowMessagesWithoutHavingInPorts, capacity));
+    }
+
+    private <C extends AbstractChannel<?, ?, ?>> C register(C channel) {
+        this.checkNotFrozen();
+
+        if (this.metrics != null) {
+            channel.setMetrics(this.metrics.createChannelMetrics(channel.getId()));
+        }
+
+        channel.setScheduler(this);
+        this.channels.add(channel);
+
+        return channel;
+    }
+
+    private <T> Channel<T> registerPooled(Channel<T> channel) {
+        this.register(channel);
+        this.pooledChannels.add(channel);
+
+        return channel;
+    }
+
+    void markDirty(AbstractChannel<?, ?, ?> channel) {
+        synchronized (this.dirtyChannelsLock) {
+            this.dirtyChannels.add(channel);
+        }
+    }
+
+    // called while forwarding the messages of the channel
+    void markDelivered(AbstractChannel<?, ?, ?> channel) {
+        this.deliveredChannels.add(channel);
+    }
+
+    // returns whether another sub-iteration is needed
+    private boolean forwardMessages() {
+        boolean progress = false;
+        List<AbstractChannel<?, ?, ?>> channels = null;
+
+        // only the channels whose OutPorts have been used are forwarded -
+        // if there are none the iteration is quiescent
+        synchronized (this.dirtyChannelsLock) {
+            if (this.dirtyChannels.isEmpty()) {
+                return false;
+            }
+
+            channels = this.dirtyChannels;
+            this.dirtyChannels = this.forwardedChannels;
+            this.forwardedChannels = channels;
+        }
+        
+        for (int i = 0; i < channels.size(); i++) {
+            final AbstractChannel<?, ?, ?> channel = channels.get(i);
+
+            if (channel.forwardMessages() != 0) {
+                progress = true;
+            }
+
+            // blocked producers got room for their messages
+            if (channel.hasUnblockedProducers()) {
+                progress = true;
+            }
+        }
+
+        channels.clear();
+        
+        return progress;
+    }
+
+    private void executeProcesses(ExecutionPlan executionPlan) {
+        this.dueProcesses.clear();
+
+        if (this.readyProcesses == null) {
+            final ScheduledProcess[] processes = executionPlan.getProcesses();
+
+            for (int i = 0; i < processes.length; i++) {
+                final ScheduledProcess process = processes[i];
+
+                if (process.isDue()) {
+                    this.dueProcesses.add(process);
+                }
+            }
+        } else {
+            this.collectReadyProcesses(executionPlan);
+        }
+
+        try {
+            if (this.executor == null) {
+                for (int i = 0; i < this.dueProcesses.size(); i++) {
+                    this.dueProcesses.get(i).execute();
+                }
+            } else {
+                this.executeProcessesConcurrently();
+            }
+        } finally {
+            if (this.readyProcesses != null) {
+                for (int i = 0; i < this.dueProcesses.size(); i++) {
+                    this.dueProcesses.get(i).requeue();
+                }
+            }
+        }
+    }
+
+    // the processes woken up by their InPorts are already known, only the
+    // sources and the blocking processes have to be added
+    private void collectReadyProcesses(ExecutionPlan executionPlan) {
+        final ScheduledProcess[] sources = executionPlan.getSources();
+        final ScheduledProcess[] blockingProcesses = executionPlan.getBlockingProcesses();
+
+        for (int i = 0; i < sources.length; i++) {
+            sources[i].wakeUp();
+        }
+
+        for (int i = 0; i < blockingProcesses.length; i++) {
+            if (blockingProcesses[i].getProcess().isPending()) {
+                blockingProcesses[i].wakeUp();
+            }
+        }
+
+        this.readyProcesses.drainTo(executionPlan.getProcesses(), this.dueProcesses);
+    }
+
+    private void executeProcessesConcurrently() {
+        List<Future<Void>> results = null;
+
+        try {
+            results = this.executor.invokeAll(this.dueProcesses);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(this.id + " | interrupted while executing the processes", e);
+        }
+
+        awaitAll(results, this.id + " | ");
+    }
+
+    // the barrier has been passed - rethrow whatever went wrong
+    static void awaitAll(List<Future<Void>> results, String messagePrefix) {
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(messagePrefix + "interrupted while executing the processes", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw new IllegalStateException(messagePrefix + "process failed", cause);
+            }
+        }
+    }
+
+    public void performIteration() {
+        final long start = (this.metrics == null) ? 0 : System.nanoTime();
+        final ExecutionPlan executionPlan = this.getExecutionPlan();
+        final ScheduledProcess[] preIterationProcesses = executionPlan.getPreIterationProcesses();
+        final ScheduledProcess[] postIterationProcesses = executionPlan.getPostIterationProcesses();
+        int subIterations = 0;
+
+        if (this.journal != null) {
+            this.journal.startIteration();
+        }
+
+        // PRE-ITERATION
+        for (int i = 0; i < preIterationProcesses.length; i++) {
+            // and execute the preIteration methods
+            preIterationProcesses[i].getProcess().preIteration();
+        }
+        
+        // forward messages from PRE-iteration
+        this.forwardMessages();
+
+        // repeat until the iteration has ended
+        boolean performSubIteration = true;
+
+        while (performSubIteration) {
+            performSubIteration = false;
+
+            // EXECUTE the LightweightProcesses
+            this.executeProcesses(executionPlan);
+            subIterations++;
+
+            if (this.journal != null) {
+                this.journal.startSubIteration();
+            }
+
+            // forward messages and check whether anything was forwarded
+            performSubIteration = this.forwardMessages();
+        }
+
+        if (this.journal != null) {
+            this.journal.startSubIteration();
+        }
+
+        // POST-ITERATION
+        for (int i = 0; i < postIterationProcesses.length; i++) {
+            postIterationProcesses[i].getProcess().postIteration();
+        }
+
+        // POST-ITERATION channel checks - only channels which received
+        // messages can hold any
+        try {
+            for (int i = 0; i < this.deliveredChannels.size(); i++) {
+                this.deliveredChannels.get(i).performPostIterationCheck();
+            }
+        } finally {
+            for (int i = 0; i < this.deliveredChannels.size(); i++) {
+                this.deliveredChannels.get(i).resetDelivered();
+            }
+
+            this.deliveredChannels.clear();
+        }
+        
+        this.forwardMessages();
+
+        // the consumers are done with the messages of this iteration
+        for (int i = 0; i < this.pooledChannels.size(); i++) {
+            this.pooledChannels.get(i).recycleMessages();
+        }
+
+        if (this.metrics != null) {
+            this.metrics.recordIteration(subIterations, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * the journal records the iteration and sub-iteration in which the
+     * messages of its channels have been forwarded - null to stop, the
+     * channels of the previous journal stop recording
+     */
+    public void setJournalRecorder(JournalRecorder journal) {
+        if ((this.journal != null) && (this.journal != journal)) {
+            this.journal.detach();
+        }
+
+        this.journal = journal;
+    }
+
+    /**
+     * starts to collect metrics for all processes and channels - without
+     * calling this method no metrics are collected at all
+     */
+    public synchronized SchedulerMetrics enableMetrics() {
+        if (this.metrics == null) {
+            this.metrics = new SchedulerMetrics();
+
+            for (ScheduledProcess process : this.processes) {
+                process.setMetrics(this.metrics.createProcessMetrics(process.getProcess().toString()));
+            }
+
+            for (AbstractChannel<?, ?, ?> channel : this.channels) {
+                channel.setMetrics(this.metrics.createChannelMetrics(channel.getId()));
+            }
+        }
+
+        return this.metrics;
+    }
+
+    // null if the metrics are not enabled
+    public SchedulerMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    private ObjectName getMetricsObjectName() throws JMException {
+        return new ObjectName("net.matthiasauer.stwp4j:type=Scheduler,id=" + this.id);
+    }
+
+    /**
+     * enables the metrics and registers them at the platform MBeanServer
+     */
+    public ObjectName registerMetricsMBean() {
+        SchedulerMetrics metrics = this.enableMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = this.getMetricsObjectName();
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException(this.id + " | unable to register the metrics MBean", e);
+        }
+    }
+
+    public void unregisterMetricsMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = this.getMetricsObjectName();
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(this.id + " | unable to unregister the metrics MBean", e);
+        }
+    }
+
+    public void start(double iterationsPerSecond) {
+        this.start(iterationsPerSecond, OverrunPolicy.Skip);
+    }
+
+    /**
+     * performs the iterations at the given rate on a dedicated thread until
+     * stop is called - performIteration must not be called in the meantime
+     */
+    public synchronized void start(double iterationsPerSecond, OverrunPolicy overrunPolicy) {
+        if ((this.runner != null) && this.runner.isRunning()) {
+            throw new IllegalStateException(this.id + " | scheduler is already running");
+        }
+
+        this.runner = new FixedRateRunner(this, iterationsPerSecond, overrunPolicy, "stwp4j-scheduler-" + this.id);
+        this.runner.start();
+    }
+
+    /**
+     * stops the dedicated thread after its current iteration, rethrows
+     * (wrapped) whatever stopped the thread prematurely
+     */
+    public synchronized void stop() {
+        if (this.runner == null) {
+            throw new IllegalStateException(this.id + " | scheduler has not been started");
+        }
+
+        this.runner.stop();
+    }
+
+    public synchronized boolean isRunning() {
+        return (this.runner != null) && this.runner.isRunning();
+    }
+
+    // null if the scheduler has never been started
+    public synchronized RunStatistics getRunStatistics() {
+        return (this.runner == null) ? null : this.runner.getStatistics();
+    }
+}
@@ -0,0 +1,178 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * a graph split into partitions - each partition is a scheduler of its own
+ * which performs its iterations on its own thread, the partitions only
+ * communicate through bridges whose messages are exchanged after all
+ * partitions have finished their iteration
+ */
+public class SchedulerGroup {
+    private static int instanceCounter = 0;
+    private final int id = (instanceCounter++);
+    private final List<Scheduler> partitions = new ArrayList<Scheduler>();
+    // one thread per partition - a partition always runs on the same thread
+    private final List<ExecutorService> threads = new ArrayList<ExecutorService>();
+    private final List<Callable<Void>> iterations = new ArrayList<Callable<Void>>();
+    private final List<Future<Void>> results = new ArrayList<Future<Void>>();
+    private final List<Bridge<?>> bridges = new ArrayList<Bridge<?>>();
+
+    public SchedulerGroup(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException(this.id + " | at least one partition is needed, but was : "
+                    + partitions);
+        }
+
+        for (int i = 0; i < partitions; i++) {
+            final Scheduler partition = new Scheduler();
+            final String threadName = "stwp4j-group-" + this.id + "-partition-" + i;
+
+            this.partitions.add(partition);
+            this.threads.add(Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }));
+            this.iterations.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    partition.performIteration();
+                    return null;
+                }
+            });
+        }
+    }
+
+    public int getPartitionCount() {
+        return this.partitions.size();
+    }
+
+    public Scheduler getPartition(int index) {
+        return this.partitions.get(index);
+    }
+
+    public List<Scheduler> getPartitions() {
+        return Collections.unmodifiableList(this.partitions);
+    }
+
+    private void checkPartition(Scheduler partition) {
+        if (!this.partitions.contains(partition)) {
+            throw new IllegalArgumentException(this.id + " | scheduler is not a partition of the group");
+        }
+
+        if (partition.isFrozen()) {
+            throw new IllegalStateException(this.id + " | partition has been frozen");
+        }
+    }
+
+    // checked before any channel is created - a failing bridge must not
+    // leave a channel in one of the partitions
+    private void checkPartitions(Scheduler source, Scheduler target) {
+        this.checkPartition(source);
+        this.checkPartition(target);
+
+        if (source == target) {
+            throw new IllegalArgumentException(this.id + " | a bridge has to connect different partitions");
+        }
+    }
+
+    /**
+     * the messages offered to the source in one iteration are distributed
+     * by the shared target channel at the start of the next iteration
+     */
+    public <T> Bridge<T> createSharedBridge(String id, Class<T> messageType, Scheduler source, Scheduler target,
+            boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        this.checkPartitions(source, target);
+
+        return this.register(new Bridge<T>(source.createSharedChannel(id, messageType, false, false),
+                target.createSharedChannel(id, messageType, mustBeEmptyAfterEachIteration,
+                        allowMessagesWithoutHavingInPorts)));
+    }
+
+    /**
+     * the messages offered to the source in one iteration are distributed
+     * by the multiplex target channel at the start of the next iteration
+     */
+    public <T> Bridge<T> createMultiplexBridge(String id, Class<T> messageType, Scheduler source,
+            Scheduler target, boolean mustBeEmptyAfterEachIteration, boolean allowMessagesWithoutHavingInPorts) {
+        this.checkPartitions(source, target);
+
+        return this.register(new Bridge<T>(source.createSharedChannel(id, messageType, false, false),
+                target.createMultiplexChannel(id, messageType, mustBeEmptyAfterEachIteration,
+                        allowMessagesWithoutHavingInPorts)));
+    }
+
+    private <T> Bridge<T> register(Bridge<T> bridge) {
+        this.bridges.add(bridge);
+
+        return bridge;
+    }
+
+    /**
+     * performs an iteration of all partitions concurrently and exchanges
+     * the messages of the bridges afterwards
+     */
+    public void performIteration() {
+        this.results.clear();
+
+        try {
+            for (int i = 0; i < this.partitions.size(); i++) {
+                this.results.add(this.threads.get(i).submit(this.iterations.get(i)));
+            }
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException(this.id + " | the group has been shut down", e);
+        }
+
+        this.waitForPartitions();
+        Scheduler.awaitAll(this.results, this.id + " | ");
+
+        // all partitions are idle - the bridges can be used without locking
+        for (int i = 0; i < this.bridges.size(); i++) {
+            this.bridges.get(i).transferMessages();
+        }
+    }
+
+    // a failed partition must not leave the others running while the
+    // bridges are used
+    private void waitForPartitions() {
+        for (Future<Void> result : this.results) {
+            boolean interrupted = false;
+
+            while (!result.isDone()) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // rethrown by Scheduler.awaitAll
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * stops the threads of the partitions
+     */
+    public void shutdown() {
+        for (ExecutorService thread : this.threads) {
+            thread.shutdown();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * the metrics are updated by the scheduler without synchronization, values
+ * read from other threads are approximations
+ */
+public final class SchedulerMetrics implements SchedulerMetricsMXBean {
+    private final List<ProcessMetrics> processMetrics = new CopyOnWriteArrayList<ProcessMetrics>();
+    private final List<ChannelMetrics> channelMetrics = new CopyOnWriteArrayList<ChannelMetrics>();
+    private final Histogram subIterations = new Histogram();
+    private final Histogram iterationTimes = new Histogram();
+
+    ProcessMetrics createProcessMetrics(String name) {
+        ProcessMetrics metrics = new ProcessMetrics(name);
+
+        this.processMetrics.add(metrics);
+
+        return metrics;
+    }
+
+    ChannelMetrics createChannelMetrics(String id) {
+        ChannelMetrics metrics = new ChannelMetrics(id);
+
+        this.channelMetrics.add(metrics);
+
+        return metrics;
+    }
+
+    void recordIteration(int subIterations, long nanos) {
+        this.subIterations.record(subIterations);
+        this.iterationTimes.record(nanos);
+    }
+
+    public List<ProcessMetrics> getProcessMetrics() {
+        return this.processMetrics;
+    }
+
+    public List<ChannelMetrics> getChannelMetrics() {
+        return this.channelMetrics;
+    }
+
+    public Histogram getSubIterationsPerIteration() {
+        return this.subIterations;
+    }
+
+    // in nanoseconds
+    public Histogram getIterationTimes() {
+        return this.iterationTimes;
+    }
+
+    @Override
+    public long getIterations() {
+        return this.subIterations.getCount();
+    }
+
+    @Override
+    public long getSubIterations() {
+        return this.subIterations.getTotal();
+    }
+
+    @Override
+    public long getMaximumSubIterationsPerIteration() {
+        return this.subIterations.getMaximum();
+    }
+
+    @Override
+    public long getMeanIterationTime() {
+        return this.iterationTimes.getMean();
+    }
+
+    // processes and channels may share their names - the later ones are
+    // numbered in the order in which they were added
+    private static String uniqueKey(Map<String, Long> result, String name) {
+        String key = name;
+
+        for (int i = 2; result.containsKey(key); i++) {
+            key = name + "#" + i;
+        }
+
+        return key;
+    }
+
+    @Override
+    public Map<String, Long> getProcessExecuteTimes() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (ProcessMetrics metrics : this.processMetrics) {
+            result.put(uniqueKey(result, metrics.getName()), metrics.getTotalExecuteTime());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getProcessExecutions() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (ProcessMetrics metrics : this.processMetrics) {
+            result.put(uniqueKey(result, metrics.getName()), metrics.getExecutions());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getChannelForwardedMessages() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (ChannelMetrics metrics : this.channelMetrics) {
+            result.put(uniqueKey(result, metrics.getId()), metrics.getForwardedMessages());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getChannelQueueDepths() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (ChannelMetrics metrics : this.channelMetrics) {
+            result.put(uniqueKey(result, metrics.getId()), metrics.getQueueDepth());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,22 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.Map;
+
+public interface SchedulerMetricsMXBean {
+    long getIterations();
+
+    long getSubIterations();
+
+    long getMaximumSubIterationsPerIteration();
+
+    long getMeanIterationTime();
+
+    // nanoseconds spent in execute() per process
+    Map<String, Long> getProcessExecuteTimes();
+
+    Map<String, Long> getProcessExecutions();
+
+    Map<String, Long> getChannelForwardedMessages();
+
+    Map<String, Long> getChannelQueueDepths();
+}
@@ -0,0 +1,69 @@
+package net.matthiasauer.stwp4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the messages of the InPorts of a work stealing channel - the forwarded
+ * messages are spread evenly across the InPorts, an InPort without
+ * messages takes half of the messages of another one. Each buffer is
+ * guarded by itself
+ */
+final class WorkStealingDeques<A> {
+    private final List<RingBuffer<A>> deques = new ArrayList<RingBuffer<A>>();
+    // the InPort which receives the first message of the next forwarding
+    private int next = 0;
+
+    // returns the index of the deque
+    int add(RingBuffer<A> deque) {
+        this.deques.add(deque);
+
+        return this.deques.size() - 1;
+    }
+
+    // only called while no InPort is read
+    void distribute(RingBuffer<A> messages) {
+        final int count = this.deques.size();
+        final int share = messages.size() / count;
+        final int extra = messages.size() % count;
+
+        // contiguous messages stay together, the remainder is spread in a
+        // round-robin fashion across the forwardings
+        for (int i = 0; i < count; i++) {
+            final int deque = (this.next + i) % count;
+
+            messages.moveFirstTo(this.deques.get(deque), (i < extra) ? (share + 1) : share);
+        }
+
+        this.next = (this.next + extra) % count;
+    }
+
+    // returns whether any messages have been stolen for the thief
+    boolean steal(int thief) {
+        final int count = this.deques.size();
+        final RingBuffer<A> thiefDeque = this.deques.get(thief);
+
+        for (int i = 1; i < count; i++) {
+            final int victim = (thief + i) % count;
+            final RingBuffer<A> victimDeque = this.deques.get(victim);
+
+            // the locks are always taken in the same order
+            final Object first = (victim < thief) ? victimDeque : thiefDeque;
+            final Object second = (victim < thief) ? thiefDeque : victimDeque;
+
+            synchronized (first) {
+                synchronized (second) {
+                    final int available = victimDeque.size();
+
+                    if (available > 0) {
+                        // the victim keeps its oldest messages
+                        victimDeque.moveLastTo(thiefDeque, (available + 1) / 2);
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+}
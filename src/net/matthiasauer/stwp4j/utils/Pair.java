@@ -1,11 +1,11 @@
-package net.matthiasauer.stwp4j.utils;
-
-public class Pair<S, T> {
-    public final S first;
-    public final T second;
-    
-    public Pair(S first, T second) {
-        this.first = first;
-        this.second = second;
-    }
-}
+package net.matthiasauer.stwp4j.utils;
+
+public class Pair<S, T> {
+    public final S first;
+    public final T second;
+    
+    public Pair(S first, T second) {
+        this.first = first;
+        this.second = second;
+    }
+}
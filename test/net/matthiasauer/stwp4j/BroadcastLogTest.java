@@ -0,0 +1,70 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class BroadcastLogTest {
+
+    private ObjectRingBuffer<Integer> createMessages(int from, int to) {
+        ObjectRingBuffer<Integer> messages = new ObjectRingBuffer<Integer>();
+
+        for (int i = from; i < to; i++) {
+            messages.offer(i);
+        }
+
+        return messages;
+    }
+
+    @Test
+    public void testReadersHaveIndependentCursors() {
+        ObjectRingBuffer<Integer> log = new ObjectRingBuffer<Integer>();
+        BroadcastLog<Object[]> broadcastLog = new BroadcastLog<Object[]>(log);
+        ObjectRingBuffer<Integer> fast = new ObjectRingBuffer<Integer>();
+        ObjectRingBuffer<Integer> slow = new ObjectRingBuffer<Integer>();
+        broadcastLog.addReader(fast);
+        broadcastLog.addReader(slow);
+
+        broadcastLog.publish(this.createMessages(0, 10));
+        assertEquals("messages are only stored once", 10, log.size());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(i), fast.poll());
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Integer.valueOf(i), slow.poll());
+        }
+
+        // grows the log while the slow reader is behind
+        broadcastLog.publish(this.createMessages(10, 100));
+        assertEquals("messages read by all readers are released", 96, log.size());
+        assertEquals(90, fast.size());
+        assertEquals(96, slow.size());
+
+        for (int i = 4; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), slow.poll());
+        }
+        assertNull(slow.poll());
+        assertEquals("reading doesn't affect the other readers", Integer.valueOf(10), fast.peek());
+    }
+
+    @Test
+    public void testLogIsReleasedOnceAllReadersAreDone() {
+        ObjectRingBuffer<Integer> log = new ObjectRingBuffer<Integer>();
+        BroadcastLog<Object[]> broadcastLog = new BroadcastLog<Object[]>(log);
+        ObjectRingBuffer<Integer> first = new ObjectRingBuffer<Integer>();
+        ObjectRingBuffer<Integer> second = new ObjectRingBuffer<Integer>();
+        broadcastLog.addReader(first);
+        broadcastLog.addReader(second);
+
+        broadcastLog.publish(this.createMessages(0, 5));
+        first.removeTo(new Object[5], 0, 5);
+        second.removeTo(new Object[5], 0, 5);
+
+        broadcastLog.publish(new ObjectRingBuffer<Integer>());
+        assertEquals(0, log.size());
+        assertEquals(0, first.size());
+        assertEquals(0, second.size());
+    }
+}
@@ -0,0 +1,188 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JournalTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final MessageCodec<String> CODEC = new MessageCodec<String>() {
+        @Override
+        public void encode(String message, ByteBuffer target) {
+            target.put(message.getBytes(UTF8));
+        }
+
+        @Override
+        public String decode(ByteBuffer source) {
+            byte[] bytes = new byte[source.remaining()];
+            source.get(bytes);
+            return new String(bytes, UTF8);
+        }
+    };
+
+    private LightweightProcess createProducer(final ChannelOutPort<String> outPort) {
+        return new LightweightProcess() {
+            int iteration = 0;
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    // a varying number of messages per iteration
+                    for (int i = 0; i < (this.iteration % 5); i++) {
+                        outPort.offer("message " + this.iteration + "/" + i);
+                    }
+
+                    this.iteration++;
+                    this.produce = false;
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createConsumer(final ChannelInPort<String> inPort, final List<String> received) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                inPort.drainTo(received);
+            }
+        };
+    }
+
+    // records 100 iterations of a producer into the file, returns the
+    // recorded messages
+    private List<String> record(File file) throws IOException {
+        List<String> recorded = new ArrayList<String>();
+
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createSharedChannel("events", String.class, true, false);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+        scheduler.addProcess(this.createProducer(outPort), outPort);
+        scheduler.addProcess(this.createConsumer(inPort, recorded), inPort);
+
+        // small regions to record across several of them
+        JournalRecorder recorder = new JournalRecorder(file, 1024);
+        scheduler.setJournalRecorder(recorder);
+        recorder.record(channel, CODEC);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.performIteration();
+        }
+        recorder.close();
+        assertEquals(recorded.size(), recorder.getRecordedMessages());
+
+        return recorded;
+    }
+
+    @Test
+    public void testRecordAndReplay() throws IOException {
+        File file = File.createTempFile("stwp4j", ".journal");
+        file.deleteOnExit();
+        List<String> recorded = this.record(file);
+
+        // replay into a scheduler that only consumes
+        List<String> replayed = new ArrayList<String>();
+        Scheduler replayScheduler = new Scheduler();
+        Channel<String> replayChannel = replayScheduler.createSharedChannel("events", String.class, true, false);
+        ChannelOutPort<String> replayOutPort = replayChannel.createOutPort();
+        ChannelInPort<String> replayInPort = replayChannel.createInPort();
+        replayScheduler.addProcess(this.createConsumer(replayInPort, replayed), replayInPort);
+
+        JournalReplay replay = new JournalReplay(file);
+        replay.bind("events", replayOutPort, CODEC);
+        long iterations = replay.replay(replayScheduler);
+        replay.close();
+
+        // iterations without messages are replayed as well
+        assertEquals(100, iterations);
+        assertEquals(recorded, replayed);
+        assertEquals(recorded.size(), replay.getReplayedMessages());
+    }
+
+    @Test
+    public void testReplayIntoBoundedChannel() throws IOException {
+        File file = File.createTempFile("stwp4j", ".journal");
+        file.deleteOnExit();
+        List<String> recorded = this.record(file);
+
+        // up to 4 messages were recorded per iteration
+        List<String> replayed = new ArrayList<String>();
+        Scheduler replayScheduler = new Scheduler();
+        Channel<String> replayChannel = replayScheduler.createSharedChannel("events", String.class, true, false, 2);
+        ChannelOutPort<String> replayOutPort = replayChannel.createOutPort();
+        ChannelInPort<String> replayInPort = replayChannel.createInPort();
+        replayScheduler.addProcess(this.createConsumer(replayInPort, replayed), replayInPort);
+
+        JournalReplay replay = new JournalReplay(file);
+        replay.bind("events", replayOutPort, CODEC);
+        long iterations = replay.replay(replayScheduler);
+        replay.close();
+
+        // the rejected messages are delayed, not dropped
+        assertTrue(iterations > 100);
+        assertEquals(recorded, replayed);
+        assertEquals(recorded.size(), replay.getReplayedMessages());
+    }
+
+    @Test
+    public void testStoppedAndClosedJournalsDetachTheChannels() throws IOException {
+        File stoppedFile = File.createTempFile("stwp4j", ".journal");
+        File closedFile = File.createTempFile("stwp4j", ".journal");
+        stoppedFile.deleteOnExit();
+        closedFile.deleteOnExit();
+        List<String> received = new ArrayList<String>();
+
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createSharedChannel("events", String.class, true, false);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+        scheduler.addProcess(this.createProducer(outPort), outPort);
+        scheduler.addProcess(this.createConsumer(inPort, received), inPort);
+
+        JournalRecorder stopped = new JournalRecorder(stoppedFile, 1024);
+        scheduler.setJournalRecorder(stopped);
+        stopped.record(channel, CODEC);
+        for (int i = 0; i < 10; i++) {
+            scheduler.performIteration();
+        }
+
+        scheduler.setJournalRecorder(null);
+        long recordedBeforeStop = stopped.getRecordedMessages();
+        for (int i = 0; i < 10; i++) {
+            scheduler.performIteration();
+        }
+        assertEquals(recordedBeforeStop, stopped.getRecordedMessages());
+        stopped.close();
+
+        // the scheduler keeps running after the journal has been closed
+        JournalRecorder closed = new JournalRecorder(closedFile, 1024);
+        scheduler.setJournalRecorder(closed);
+        closed.record(channel, CODEC);
+        for (int i = 0; i < 10; i++) {
+            scheduler.performIteration();
+        }
+
+        closed.close();
+        long recordedBeforeClose = closed.getRecordedMessages();
+        for (int i = 0; i < 10; i++) {
+            scheduler.performIteration();
+        }
+        assertEquals(recordedBeforeClose, closed.getRecordedMessages());
+        assertEquals(40 * 2, received.size());
+    }
+}
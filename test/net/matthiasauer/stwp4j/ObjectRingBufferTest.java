@@ -0,0 +1,116 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.RandomAccess;
+
+import org.junit.Test;
+
+public class ObjectRingBufferTest {
+
+    // a collection with fast access which isn't a list
+    static class RandomAccessCollection extends AbstractCollection<Integer> implements RandomAccess {
+        @Override
+        public Iterator<Integer> iterator() {
+            return Arrays.asList(1, 2, 3).iterator();
+        }
+
+        @Override
+        public int size() {
+            return 3;
+        }
+    }
+
+    @Test
+    public void testBufferGrowsAndKeepsOrder() {
+        ObjectRingBuffer<Integer> buffer = new ObjectRingBuffer<Integer>();
+
+        // move the head so that the buffer wraps around while growing
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(i);
+            buffer.poll();
+        }
+
+        for (int i = 0; i < 100; i++) {
+            buffer.offer(i);
+        }
+
+        assertEquals("incorrect size", 100, buffer.size());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("incorrect order", Integer.valueOf(i), buffer.poll());
+        }
+
+        assertNull("buffer has to be empty", buffer.poll());
+    }
+
+    @Test
+    public void testAddAllWithWrappedBuffers() {
+        ObjectRingBuffer<Integer> source = new ObjectRingBuffer<Integer>();
+        ObjectRingBuffer<Integer> target = new ObjectRingBuffer<Integer>();
+
+        for (int i = 0; i < 13; i++) {
+            source.offer(-1);
+            source.poll();
+            target.offer(-1);
+        }
+        for (int i = 0; i < 7; i++) {
+            target.poll();
+        }
+        for (int i = 0; i < 10; i++) {
+            source.offer(i);
+        }
+
+        target.addAll(source);
+
+        assertEquals("the source must not be changed", 10, source.size());
+        assertEquals("incorrect size", 16, target.size());
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals("incorrect element", Integer.valueOf(-1), target.poll());
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("incorrect element", Integer.valueOf(i), target.poll());
+        }
+
+        source.clear();
+        assertTrue("buffer has to be empty", source.isEmpty());
+        assertNull("buffer has to be empty", source.peek());
+    }
+
+    @Test
+    public void testDrainTo() {
+        ObjectRingBuffer<Integer> source = new ObjectRingBuffer<Integer>();
+        ObjectRingBuffer<Integer> target = new ObjectRingBuffer<Integer>();
+
+        source.offer(1);
+        source.offer(2);
+        source.drainTo(target);
+        source.offer(3);
+        source.drainTo(target);
+
+        assertTrue("the source has to be empty", source.isEmpty());
+        assertEquals("incorrect size", 3, target.size());
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals("incorrect order", Integer.valueOf(i), target.poll());
+        }
+    }
+
+    @Test
+    public void testOfferAllOfRandomAccessCollection() {
+        ObjectRingBuffer<Integer> buffer = new ObjectRingBuffer<Integer>();
+
+        buffer.offerAll(new RandomAccessCollection());
+
+        assertEquals("incorrect size", 3, buffer.size());
+        for (int i = 1; i <= 3; i++) {
+            assertEquals("incorrect order", Integer.valueOf(i), buffer.poll());
+        }
+    }
+}
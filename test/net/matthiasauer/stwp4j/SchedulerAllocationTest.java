@@ -0,0 +1,129 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class SchedulerAllocationTest {
+    private static final int WARM_UP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    private LightweightProcess createSource(final ChannelOutPort<String> outPort, final IntChannelOutPort intOutPort,
+            final List<String> messages) {
+        return new LightweightProcess() {
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    outPort.offerAll(messages);
+
+                    for (int i = 0; i < messages.size(); i++) {
+                        intOutPort.offer(i);
+                    }
+
+                    this.produce = false;
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createRelay(final ChannelInPort<String> inPort, final ChannelOutPort<String> outPort) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                String message = null;
+
+                while ((message = inPort.poll()) != null) {
+                    outPort.offer(message);
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createSink(final ChannelInPort<String> inPort, final List<String> buffer) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                inPort.drainTo(buffer);
+                buffer.clear();
+            }
+        };
+    }
+
+    private LightweightProcess createIntSink(final IntChannelInPort inPort, final int[] buffer) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                while (inPort.drainTo(buffer, 0, buffer.length) != 0) {
+                    // only drains
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testSteadyStateIterationDoesNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Scheduler scheduler = new Scheduler();
+        Channel<String> shared = scheduler.createSharedChannel("shared", String.class, true, false);
+        Channel<String> multiplex = scheduler.createMultiplexChannel("multiplex", String.class, true, false);
+        Channel<String> bounded = scheduler.createSharedChannel("bounded", String.class, true, false, 1000);
+        IntChannel ints = scheduler.createSharedIntChannel("ints", true, false);
+        List<String> messages = new ArrayList<String>();
+
+        for (int i = 0; i < 100; i++) {
+            messages.add("message " + i);
+        }
+
+        ChannelOutPort<String> sourceOutPort = shared.createOutPort();
+        IntChannelOutPort intOutPort = ints.createOutPort();
+        scheduler.addProcess(this.createSource(sourceOutPort, intOutPort, messages), sourceOutPort, intOutPort);
+
+        ChannelInPort<String> relayInPort = shared.createInPort();
+        ChannelOutPort<String> relayOutPort = multiplex.createOutPort();
+        scheduler.addProcess(this.createRelay(relayInPort, relayOutPort), relayInPort, relayOutPort);
+
+        ChannelInPort<String> boundedRelayInPort = multiplex.createInPort();
+        ChannelOutPort<String> boundedRelayOutPort = bounded.createOutPort();
+        scheduler.addProcess(this.createRelay(boundedRelayInPort, boundedRelayOutPort), boundedRelayInPort,
+                boundedRelayOutPort);
+
+        ChannelInPort<String> sinkInPort = multiplex.createInPort();
+        scheduler.addProcess(this.createSink(sinkInPort, new ArrayList<String>(200)), sinkInPort);
+        ChannelInPort<String> boundedSinkInPort = bounded.createInPort();
+        scheduler.addProcess(this.createSink(boundedSinkInPort, new ArrayList<String>(200)), boundedSinkInPort);
+        IntChannelInPort intInPort = ints.createInPort();
+        scheduler.addProcess(this.createIntSink(intInPort, new int[64]), intInPort);
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            scheduler.performIteration();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long start = threads.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            scheduler.performIteration();
+        }
+
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - start;
+
+        assertEquals("bytes allocated by " + MEASURED_ITERATIONS + " iterations", 0, allocated);
+    }
+}
@@ -0,0 +1,72 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SchedulerBatchTest {
+
+    @Test
+    public void testOfferAllAndDrainTo() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createMultiplexChannel("batch", String.class, false, false);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+
+        outPort.offerAll(Arrays.asList("a", "b", "c"));
+        outPort.offer(new String[] { "x", "d", "e", "y" }, 1, 2);
+        scheduler.performIteration();
+
+        List<String> received = new ArrayList<String>();
+        assertEquals("incorrect number of drained messages", 2, inPort.drainTo(received, 2));
+        assertEquals("incorrect number of drained messages", 3, inPort.drainTo(received));
+        assertEquals("incorrect messages", Arrays.asList("a", "b", "c", "d", "e"), received);
+        assertEquals("InPort has to be empty", null, inPort.poll());
+    }
+
+    @Test
+    public void testForEach() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createSharedChannel("batch", String.class, false, false);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+        final StringBuilder received = new StringBuilder();
+
+        outPort.offerAll(Arrays.asList("a", "b", "c"));
+        scheduler.performIteration();
+
+        int handled = inPort.forEach(new MessageHandler<String>() {
+            @Override
+            public void handle(String message) {
+                received.append(message);
+            }
+        });
+
+        assertEquals("incorrect number of handled messages", 3, handled);
+        assertEquals("incorrect messages", "abc", received.toString());
+    }
+
+    @Test
+    public void testPrimitiveArrays() {
+        Scheduler scheduler = new Scheduler();
+        IntChannel channel = scheduler.createMultiplexIntChannel("ints", false, false);
+        IntChannelOutPort outPort = channel.createOutPort();
+        IntChannelInPort inPort = channel.createInPort();
+
+        for (int i = 0; i < 10; i++) {
+            outPort.offer(new int[] { 1, 2, 3, 4 }, 1, 3);
+        }
+        scheduler.performIteration();
+
+        int[] received = new int[40];
+        assertEquals("incorrect number of drained messages", 30, inPort.drainTo(received, 5, 100));
+        assertArrayEquals("incorrect messages", new int[] { 0, 0, 0, 0, 0, 2, 3, 4, 2, 3 },
+                Arrays.copyOf(received, 10));
+        assertEquals("InPort has to be empty", true, inPort.isEmpty());
+    }
+}
@@ -0,0 +1,154 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SchedulerBlockingProcessTest {
+
+    private static class UpperCaseProcess extends BlockingProcess {
+        private final ChannelInPort<String> inPort;
+        private final ChannelOutPort<String> outPort;
+        private final CountDownLatch latch;
+        private String request;
+        private String response;
+
+        UpperCaseProcess(ChannelInPort<String> inPort, ChannelOutPort<String> outPort, CountDownLatch latch) {
+            this.inPort = inPort;
+            this.outPort = outPort;
+            this.latch = latch;
+        }
+
+        @Override
+        protected boolean prepare() {
+            this.request = this.inPort.poll();
+            return this.request != null;
+        }
+
+        @Override
+        protected void performBlocking() throws Exception {
+            if (!this.latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch not released");
+            }
+
+            if (this.request.isEmpty()) {
+                throw new Exception("empty request");
+            }
+
+            this.response = this.request.toUpperCase();
+        }
+
+        @Override
+        protected void complete() {
+            this.outPort.offer(this.response);
+        }
+    }
+
+    private LightweightProcess createConsumer(final ChannelInPort<String> inPort, final List<String> received) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                inPort.drainTo(received);
+            }
+        };
+    }
+
+    private boolean iterateUntil(Scheduler scheduler, List<String> received, int size) {
+        long deadline = System.currentTimeMillis() + 10000;
+
+        while (System.currentTimeMillis() < deadline) {
+            scheduler.performIteration();
+
+            if (received.size() >= size) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Test
+    public void testSchedulerIsNotBlocked() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> requests = scheduler.createSharedChannel("requests", String.class, false, false);
+        Channel<String> responses = scheduler.createSharedChannel("responses", String.class, true, false);
+        ChannelOutPort<String> requestOutPort = requests.createOutPort();
+        ChannelInPort<String> requestInPort = requests.createInPort();
+        ChannelOutPort<String> responseOutPort = responses.createOutPort();
+        ChannelInPort<String> responseInPort = responses.createInPort();
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> received = new ArrayList<String>();
+
+        scheduler.addProcess(new UpperCaseProcess(requestInPort, responseOutPort, latch), requestInPort,
+                responseOutPort);
+        scheduler.addProcess(this.createConsumer(responseInPort, received), responseInPort);
+
+        requestOutPort.offer("foo");
+        requestOutPort.offer("bar");
+
+        // the iterations continue while the process is blocked
+        for (int i = 0; i < 10; i++) {
+            scheduler.performIteration();
+        }
+        assertTrue(received.isEmpty());
+
+        latch.countDown();
+        assertTrue(this.iterateUntil(scheduler, received, 2));
+        assertEquals(Arrays.asList("FOO", "BAR"), received);
+    }
+
+    @Test
+    public void testFrozenSchedulerExecutesCompletedProcesses() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> requests = scheduler.createSharedChannel("requests", String.class, false, false);
+        Channel<String> responses = scheduler.createSharedChannel("responses", String.class, true, false);
+        ChannelOutPort<String> requestOutPort = requests.createOutPort();
+        ChannelInPort<String> requestInPort = requests.createInPort();
+        ChannelOutPort<String> responseOutPort = responses.createOutPort();
+        ChannelInPort<String> responseInPort = responses.createInPort();
+        List<String> received = new ArrayList<String>();
+
+        scheduler.addProcess(new UpperCaseProcess(requestInPort, responseOutPort, new CountDownLatch(0)),
+                requestInPort, responseOutPort);
+        scheduler.addProcess(this.createConsumer(responseInPort, received), responseInPort);
+        scheduler.freeze();
+
+        // the process isn't woken up when the blocking part completes
+        requestOutPort.offer("foo");
+        requestOutPort.offer("bar");
+        assertTrue(this.iterateUntil(scheduler, received, 2));
+        assertEquals(Arrays.asList("FOO", "BAR"), received);
+    }
+
+    @Test
+    public void testFailureIsRethrownByTheScheduler() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> requests = scheduler.createSharedChannel("requests", String.class, false, false);
+        Channel<String> responses = scheduler.createSharedChannel("responses", String.class, false, true);
+        ChannelOutPort<String> requestOutPort = requests.createOutPort();
+        ChannelInPort<String> requestInPort = requests.createInPort();
+        ChannelOutPort<String> responseOutPort = responses.createOutPort();
+        CountDownLatch latch = new CountDownLatch(0);
+
+        scheduler.addProcess(new UpperCaseProcess(requestInPort, responseOutPort, latch), requestInPort,
+                responseOutPort);
+        requestOutPort.offer("");
+
+        try {
+            this.iterateUntil(scheduler, new ArrayList<String>(), 1);
+        } catch (IllegalStateException e) {
+            assertEquals("empty request", e.getCause().getMessage());
+            return;
+        }
+
+        fail("Expected IllegalStateException not thrown !");
+    }
+}
@@ -0,0 +1,87 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.matthiasauer.stwp4j.TestUtils.TestUtilsExecutable;
+
+public class SchedulerBoundedChannelTest {
+
+    @Test
+    public void testProducerIsThrottledUntilConsumerDrained() {
+        final int capacity = 10;
+        Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createSharedChannel("bounded", Integer.class, true, false, capacity);
+        final ChannelOutPort<Integer> outPort = channel.createOutPort();
+        final ChannelInPort<Integer> inPort = channel.createInPort();
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger maximumBatch = new AtomicInteger();
+
+        scheduler.addProcess(new LightweightProcess() {
+            int next = 0;
+
+            @Override
+            protected void execute() {
+                // try to produce everything at once
+                while ((this.next < 100) && outPort.offer(this.next)) {
+                    this.next++;
+                }
+            }
+        }, outPort);
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                int batch = 0;
+
+                while (inPort.poll() != null) {
+                    batch++;
+                }
+
+                received.addAndGet(batch);
+                maximumBatch.set(Math.max(maximumBatch.get(), batch));
+            }
+        }, inPort);
+
+        scheduler.performIteration();
+
+        assertEquals("all messages have to be delivered in the iteration", 100, received.get());
+        assertEquals("the channel must never hold more than its capacity", capacity, maximumBatch.get());
+    }
+
+    @Test
+    public void testOfferFailsIfChannelIsFull() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createMultiplexChannel("bounded", String.class, false, false, 2);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+
+        assertTrue("channel is not full yet", outPort.offer("1"));
+        assertTrue("channel is not full yet", outPort.offer("2"));
+        assertFalse("channel is full", outPort.offer("3"));
+
+        // the messages are now in the InPort - which still counts
+        scheduler.performIteration();
+        assertFalse("channel is full", outPort.offer("3"));
+
+        inPort.poll();
+        scheduler.performIteration();
+        assertTrue("channel is not full anymore", outPort.offer("3"));
+        assertFalse("channel is full", outPort.offer(new String[] { "4", "5" }, 0, 2));
+    }
+
+    @Test
+    public void testCapacityHasToBePositive() {
+        final Scheduler scheduler = new Scheduler();
+
+        TestUtils.expectInterruptedExceptionToContain(new TestUtilsExecutable() {
+            public void execute() {
+                scheduler.createMultiplexIntChannel("bounded", false, false, 0);
+            }
+        }, "capacity has to be at least 1");
+    }
+}
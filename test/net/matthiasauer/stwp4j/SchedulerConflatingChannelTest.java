@@ -0,0 +1,74 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SchedulerConflatingChannelTest {
+
+    private static final KeyExtractor<String> FIRST_CHARACTER = new KeyExtractor<String>() {
+        @Override
+        public Object getKey(String message) {
+            return message.charAt(0);
+        }
+    };
+
+    @Test
+    public void testLatestMessagePerKeyIsKept() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createConflatingChannel("prices", String.class, false, false,
+                FIRST_CHARACTER);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+        List<String> received = new ArrayList<String>();
+
+        outPort.offerAll(Arrays.asList("a1", "b1", "a2", "c1", "b2"));
+        scheduler.performIteration();
+
+        // the messages are ordered by their latest update
+        inPort.drainTo(received);
+        assertEquals(Arrays.asList("a2", "c1", "b2"), received);
+    }
+
+    @Test
+    public void testWaitingMessagesAreReplaced() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createConflatingChannel("prices", String.class, false, false,
+                FIRST_CHARACTER);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+
+        // nobody consumes the messages for a while
+        for (int i = 0; i < 100; i++) {
+            outPort.offer("a" + i);
+            outPort.offer("b" + i);
+            scheduler.performIteration();
+        }
+
+        assertEquals(2, inPort.getBuffer().size());
+        assertEquals("a99", inPort.poll());
+        assertEquals("b99", inPort.poll());
+        assertNull(inPort.poll());
+    }
+
+    @Test
+    public void testOnlyLatestMessageWithoutKey() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createConflatingChannel("state", String.class, false, false);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+
+        outPort.offerAll(Arrays.asList("first", "second"));
+        scheduler.performIteration();
+        outPort.offer("third");
+        scheduler.performIteration();
+
+        assertEquals("third", inPort.poll());
+        assertNull(inPort.poll());
+    }
+}
@@ -0,0 +1,138 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.matthiasauer.stwp4j.TestUtils.TestUtilsExecutable;
+
+public class SchedulerDataDrivenTest {
+
+    private LightweightProcess createSource(final ChannelOutPort<String> outPort) {
+        return new LightweightProcess() {
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    outPort.offer("token");
+                }
+
+                this.produce = false;
+            }
+        };
+    }
+
+    private LightweightProcess createRelay(final ChannelInPort<String> inPort, final ChannelOutPort<String> outPort,
+            final AtomicInteger executions) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                executions.incrementAndGet();
+                String message = null;
+
+                while ((message = inPort.poll()) != null) {
+                    if (outPort != null) {
+                        outPort.offer(message);
+                    }
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testOnlyProcessesWithMessagesAreExecuted() {
+        final int chainLength = 20;
+        Scheduler scheduler = new Scheduler();
+        AtomicInteger executions = new AtomicInteger();
+        Channel<String> first = scheduler.createMultiplexChannel("chain0", String.class, true, false);
+        ChannelOutPort<String> sourceOutPort = first.createOutPort();
+        scheduler.addProcess(this.createSource(sourceOutPort), sourceOutPort);
+
+        Channel<String> previous = first;
+        for (int i = 1; i <= chainLength; i++) {
+            ChannelInPort<String> inPort = previous.createInPort();
+            ChannelOutPort<String> outPort = null;
+
+            if (i < chainLength) {
+                previous = scheduler.createMultiplexChannel("chain" + i, String.class, true, false);
+                outPort = previous.createOutPort();
+                scheduler.addProcess(this.createRelay(inPort, outPort, executions), inPort, outPort);
+            } else {
+                scheduler.addProcess(this.createRelay(inPort, outPort, executions), inPort);
+            }
+        }
+
+        scheduler.performIteration();
+        assertEquals("each process of the chain has to be executed exactly once", chainLength, executions.get());
+
+        scheduler.performIteration();
+        assertEquals("each process of the chain has to be executed exactly once", 2 * chainLength,
+                executions.get());
+    }
+
+    @Test
+    public void testProcessWithRemainingMessagesIsExecutedAgain() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createMultiplexChannel("channel", String.class, false, false);
+        final ChannelOutPort<String> outPort = channel.createOutPort();
+        final ChannelInPort<String> inPort = channel.createInPort();
+        final AtomicInteger received = new AtomicInteger();
+
+        scheduler.addProcess(new LightweightProcess() {
+            boolean first = true;
+
+            @Override
+            protected void preIteration() {
+                if (this.first) {
+                    outPort.offer("1");
+                    outPort.offer("2");
+                    outPort.offer("3");
+                }
+
+                this.first = false;
+            }
+
+            @Override
+            protected void execute() {
+            }
+        }, outPort);
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                // only consume a single message per execution
+                if (inPort.poll() != null) {
+                    received.incrementAndGet();
+                }
+            }
+        }, inPort);
+
+        for (int iteration = 1; iteration <= 3; iteration++) {
+            scheduler.performIteration();
+
+            assertEquals("the remaining messages have to be consumed in the next iteration", iteration,
+                    received.get());
+        }
+    }
+
+    @Test
+    public void testPortCanOnlyBelongToOneProcess() {
+        final Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createMultiplexChannel("channel", String.class, true, false);
+        final ChannelInPort<String> inPort = channel.createInPort();
+        scheduler.addProcess(this.createRelay(inPort, null, new AtomicInteger()), inPort);
+
+        TestUtils.expectInterruptedExceptionToContain(new TestUtilsExecutable() {
+            public void execute() {
+                scheduler.addProcess(createRelay(inPort, null, new AtomicInteger()), inPort);
+            }
+        }, "port already belongs to a process");
+    }
+}
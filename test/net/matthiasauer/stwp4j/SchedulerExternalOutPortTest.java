@@ -0,0 +1,179 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import net.matthiasauer.stwp4j.TestUtils.TestUtilsExecutable;
+
+public class SchedulerExternalOutPortTest {
+
+    private LightweightProcess createConsumer(final ChannelInPort<Integer> inPort, final List<Integer> received) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                inPort.drainTo(received);
+            }
+        };
+    }
+
+    @Test
+    public void testMessagesOfOtherThreadsAreForwarded() throws InterruptedException {
+        final int threads = 4;
+        final int messagesPerThread = 10000;
+        Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createSharedChannel("external", Integer.class, false, false);
+        final ExternalChannelOutPort<Integer> outPort = channel.createExternalOutPort();
+        ChannelInPort<Integer> inPort = channel.createInPort();
+        List<Integer> received = new ArrayList<Integer>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<Thread>();
+
+        scheduler.addProcess(this.createConsumer(inPort, received), inPort);
+
+        for (int i = 0; i < threads; i++) {
+            final int offset = i * messagesPerThread;
+            Thread producer = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < messagesPerThread; j++) {
+                        outPort.offer(offset + j);
+                    }
+                }
+            };
+            producer.start();
+            producers.add(producer);
+        }
+
+        start.countDown();
+
+        // iterate while the other threads are offering
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((received.size() < (threads * messagesPerThread)) && (System.currentTimeMillis() < deadline)) {
+            scheduler.performIteration();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        scheduler.performIteration();
+
+        assertEquals(threads * messagesPerThread, received.size());
+
+        // the messages of each thread arrive in order
+        int[] expected = new int[threads];
+        for (int i = 0; i < threads; i++) {
+            expected[i] = i * messagesPerThread;
+        }
+        for (Integer message : received) {
+            int thread = message / messagesPerThread;
+            assertEquals(expected[thread]++, message.intValue());
+        }
+    }
+
+    @Test
+    public void testExternalOutPortRespectsCapacity() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createSharedChannel("external", Integer.class, false, false, 2);
+        ExternalChannelOutPort<Integer> outPort = channel.createExternalOutPort();
+        ChannelInPort<Integer> inPort = channel.createInPort();
+
+        assertTrue(outPort.offer(1));
+        assertTrue(outPort.offer(2));
+        assertFalse(outPort.offer(3));
+
+        scheduler.performIteration();
+        assertEquals(Integer.valueOf(1), inPort.poll());
+        assertEquals(Integer.valueOf(2), inPort.poll());
+
+        scheduler.performIteration();
+        assertTrue(outPort.offer(3));
+    }
+
+    @Test
+    public void testOfferWhileForwardingRespectsCapacity() throws InterruptedException {
+        final Scheduler scheduler = new Scheduler();
+        final AtomicReference<ExternalChannelOutPort<Integer>> outPort =
+                new AtomicReference<ExternalChannelOutPort<Integer>>();
+        final AtomicBoolean offered = new AtomicBoolean(false);
+        // the keys are extracted after the queue of the OutPort has been
+        // collected - the message offered meanwhile has to keep its permit
+        Channel<Integer> channel = scheduler.createPartitionedChannel("external", Integer.class, false, false,
+                new KeyExtractor<Integer>() {
+                    @Override
+                    public Object getKey(Integer message) {
+                        if (offered.compareAndSet(false, true)) {
+                            Thread producer = new Thread() {
+                                @Override
+                                public void run() {
+                                    outPort.get().offer(2);
+                                }
+                            };
+                            producer.start();
+
+                            try {
+                                producer.join();
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+
+                        return message;
+                    }
+                }, 2);
+        final List<Boolean> accepted = new ArrayList<Boolean>();
+        outPort.set(channel.createExternalOutPort());
+        ChannelInPort<Integer> inPort = channel.createInPort();
+
+        // offers after the messages of the pre-iteration have been forwarded
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                if (accepted.isEmpty()) {
+                    accepted.add(outPort.get().offer(3));
+                }
+            }
+        });
+
+        assertTrue(outPort.get().offer(1));
+        scheduler.performIteration();
+
+        assertEquals(Arrays.asList(false), accepted);
+        assertEquals(2, channel.getBacklog());
+        assertEquals(Integer.valueOf(1), inPort.poll());
+        assertEquals(Integer.valueOf(2), inPort.poll());
+    }
+
+    @Test
+    public void testExternalOutPortCantBelongToProcess() {
+        final Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createSharedChannel("external", Integer.class, false, false);
+        final ExternalChannelOutPort<Integer> outPort = channel.createExternalOutPort();
+
+        TestUtils.expectInterruptedExceptionToContain(new TestUtilsExecutable() {
+            @Override
+            public void execute() {
+                scheduler.addProcess(new LightweightProcess() {
+                    @Override
+                    protected void execute() {
+                    }
+                }, outPort);
+            }
+        }, "external OutPorts can't belong to a process");
+    }
+}
@@ -0,0 +1,132 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SchedulerFixedRateTest {
+
+    private LightweightProcess createCounter(final AtomicInteger iterations, final long sleepMillis) {
+        return new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                iterations.incrementAndGet();
+
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            protected void execute() {
+            }
+        };
+    }
+
+    @Test
+    public void testIterationsArePerformedAtTheRate() throws InterruptedException {
+        AtomicInteger iterations = new AtomicInteger();
+        Scheduler scheduler = new Scheduler();
+        scheduler.addProcess(this.createCounter(iterations, 0));
+
+        scheduler.start(200);
+        assertTrue("scheduler has to run", scheduler.isRunning());
+        Thread.sleep(500);
+        scheduler.stop();
+        assertFalse("scheduler must not run anymore", scheduler.isRunning());
+
+        RunStatistics statistics = scheduler.getRunStatistics();
+        assertEquals("statistics have to count the iterations", iterations.get(), statistics.getIterations());
+        assertTrue("too few iterations : " + statistics, statistics.getIterations() >= 50);
+        assertTrue("too many iterations : " + statistics, statistics.getIterations() <= 110);
+    }
+
+    @Test
+    public void testOverrunsSkipTicks() throws InterruptedException {
+        AtomicInteger iterations = new AtomicInteger();
+        Scheduler scheduler = new Scheduler();
+        scheduler.addProcess(this.createCounter(iterations, 25));
+
+        scheduler.start(100, OverrunPolicy.Skip);
+        Thread.sleep(300);
+        scheduler.stop();
+
+        RunStatistics statistics = scheduler.getRunStatistics();
+        assertEquals("each iteration overruns : " + statistics, statistics.getIterations(), statistics.getOverruns());
+        assertTrue("ticks have to be skipped : " + statistics,
+                statistics.getSkippedTicks() >= statistics.getIterations());
+        assertTrue("latency has to be measured : " + statistics, statistics.getMinimumLatency() >= 25000000);
+    }
+
+    @Test
+    public void testOverrunsShiftTheScheduleWhenDrifting() throws InterruptedException {
+        final List<Long> starts = Collections.synchronizedList(new ArrayList<Long>());
+        Scheduler scheduler = new Scheduler();
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                starts.add(System.nanoTime());
+
+                try {
+                    Thread.sleep(25);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            protected void execute() {
+            }
+        });
+
+        // a period of 20 ms, each iteration takes at least 25 ms
+        scheduler.start(50, OverrunPolicy.Drift);
+        Thread.sleep(300);
+        scheduler.stop();
+
+        RunStatistics statistics = scheduler.getRunStatistics();
+        assertEquals("each iteration overruns : " + statistics, statistics.getIterations(), statistics.getOverruns());
+        assertTrue("too few iterations : " + statistics, starts.size() >= 3);
+
+        // the next iteration starts a period after the end of the previous
+        for (int i = 1; i < starts.size(); i++) {
+            long gap = starts.get(i) - starts.get(i - 1);
+            assertTrue("iterations started " + gap + " ns apart", gap >= 44000000);
+        }
+    }
+
+    @Test
+    public void testFailingIterationIsRethrownOnStop() throws InterruptedException {
+        Scheduler scheduler = new Scheduler();
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                throw new IllegalArgumentException("broken process");
+            }
+        });
+
+        scheduler.start(1000);
+        Thread.sleep(50);
+        assertFalse("scheduler has to stop after the failure", scheduler.isRunning());
+
+        try {
+            scheduler.stop();
+        } catch (IllegalStateException exception) {
+            assertEquals("the cause has to be the failure of the process", "broken process",
+                    exception.getCause().getMessage());
+            return;
+        }
+
+        fail("Expected IllegalStateException not thrown !");
+    }
+}
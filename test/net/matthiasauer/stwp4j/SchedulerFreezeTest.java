@@ -0,0 +1,247 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import net.matthiasauer.stwp4j.TestUtils.TestUtilsExecutable;
+
+public class SchedulerFreezeTest {
+
+    private LightweightProcess createProcess(final String name, final List<String> executed) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                executed.add(name);
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    private void expectFrozen(TestUtilsExecutable executable) {
+        try {
+            executable.execute();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("scheduler has been frozen"));
+            return;
+        }
+
+        fail("Expected IllegalStateException not thrown !");
+    }
+
+    @Test
+    public void testExecutionPlanOfCycle() {
+        Scheduler scheduler = new Scheduler();
+        List<String> executed = new ArrayList<String>();
+        Channel<String> forth = scheduler.createSharedChannel("forth", String.class, false, false);
+        Channel<String> back = scheduler.createSharedChannel("back", String.class, false, false);
+        Channel<String> out = scheduler.createSharedChannel("out", String.class, false, false);
+        ChannelOutPort<String> aForth = forth.createOutPort();
+        ChannelInPort<String> aBack = back.createInPort();
+        ChannelInPort<String> bForth = forth.createInPort();
+        ChannelOutPort<String> bBack = back.createOutPort();
+        ChannelOutPort<String> bOut = out.createOutPort();
+        ChannelInPort<String> sinkIn = out.createInPort();
+
+        scheduler.setProcessOrdering(ProcessOrdering.Topological);
+        scheduler.addProcess(this.createProcess("sink", executed), sinkIn);
+        scheduler.addProcess(this.createProcess("b", executed), bForth, bBack, bOut);
+        scheduler.addProcess(this.createProcess("a", executed), aForth, aBack);
+
+        assertFalse(scheduler.isFrozen());
+        ExecutionPlan plan = scheduler.freeze();
+        assertTrue(scheduler.isFrozen());
+        assertSame(plan, scheduler.freeze());
+
+        assertEquals(ProcessOrdering.Topological, plan.getProcessOrdering());
+        assertEquals(3, plan.getProcessCount());
+        assertEquals("b", plan.getProcess(0).toString());
+        assertEquals("a", plan.getProcess(1).toString());
+        assertEquals("sink", plan.getProcess(2).toString());
+        assertEquals(2, plan.getComponentCount());
+        assertEquals(plan.getComponentOf(0), plan.getComponentOf(1));
+        assertNotEquals(plan.getComponentOf(0), plan.getComponentOf(2));
+
+        // only the process whose InPort received the message is executed
+        forth.createExternalOutPort().offer("ping");
+        scheduler.performIteration();
+        assertEquals(Arrays.asList("b"), executed);
+    }
+
+    @Test
+    public void testNoChangesAfterFreezing() {
+        final Scheduler scheduler = new Scheduler();
+        final Channel<String> channel = scheduler.createSharedChannel("channel", String.class, false, false);
+        ChannelOutPort<String> outPort = channel.createOutPort();
+        ChannelInPort<String> inPort = channel.createInPort();
+        List<String> executed = new ArrayList<String>();
+
+        scheduler.addProcess(this.createProcess("producer", executed), outPort);
+        scheduler.addProcess(this.createProcess("consumer", executed), inPort);
+        scheduler.freeze();
+
+        this.expectFrozen(new TestUtilsExecutable() {
+            @Override
+            public void execute() {
+                scheduler.addProcess(SchedulerFreezeTest.this.createProcess("late", new ArrayList<String>()));
+            }
+        });
+        this.expectFrozen(new TestUtilsExecutable() {
+            @Override
+            public void execute() {
+                scheduler.createSharedChannel("late", String.class, false, false);
+            }
+        });
+        this.expectFrozen(new TestUtilsExecutable() {
+            @Override
+            public void execute() {
+                channel.createInPort();
+            }
+        });
+        this.expectFrozen(new TestUtilsExecutable() {
+            @Override
+            public void execute() {
+                channel.createOutPort();
+            }
+        });
+        this.expectFrozen(new TestUtilsExecutable() {
+            @Override
+            public void execute() {
+                scheduler.setProcessOrdering(ProcessOrdering.Topological);
+            }
+        });
+
+        // external OutPorts aren't part of the graph
+        channel.createExternalOutPort().offer("external");
+        scheduler.performIteration();
+        assertEquals("external", inPort.poll());
+    }
+
+    // producer -> work -> worker (one message per execution) -> results ->
+    // two sinks, the idle process is never woken up
+    private List<String> performIterations(boolean freeze, ExecutorService executor) {
+        final Scheduler scheduler = new Scheduler(executor);
+        final List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        Channel<Integer> work = scheduler.createSharedChannel("work", Integer.class, false, false);
+        Channel<String> results = scheduler.createMultiplexChannel("results", String.class, true, false);
+        Channel<String> idle = scheduler.createSharedChannel("idle", String.class, false, false);
+        final ChannelOutPort<Integer> workOutPort = work.createOutPort();
+        final ChannelInPort<Integer> workInPort = work.createInPort();
+        final ChannelOutPort<String> resultOutPort = results.createOutPort();
+
+        scheduler.addProcess(new LightweightProcess() {
+            int iteration = 0;
+
+            @Override
+            protected void preIteration() {
+                for (int i = 0; i < (this.iteration % 4); i++) {
+                    workOutPort.offer(this.iteration * 10 + i);
+                }
+
+                this.iteration++;
+            }
+
+            @Override
+            protected void execute() {
+                log.add("producer");
+            }
+        }, workOutPort);
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                Integer message = workInPort.poll();
+
+                if (message != null) {
+                    resultOutPort.offer("result " + message);
+                }
+            }
+        }, workInPort, resultOutPort);
+
+        for (final String sink : new String[] { "first", "second" }) {
+            final ChannelInPort<String> inPort = results.createInPort();
+
+            scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    String message = null;
+
+                    while ((message = inPort.poll()) != null) {
+                        log.add(sink + " " + message);
+                    }
+                }
+            }, inPort);
+        }
+
+        scheduler.addProcess(this.createProcess("idle", log), idle.createInPort());
+
+        if (freeze) {
+            scheduler.freeze();
+        }
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.performIteration();
+            log.add("iteration " + i);
+        }
+
+        return log;
+    }
+
+    @Test
+    public void testFrozenSchedulerExecutesTheSameProcesses() {
+        List<String> expected = this.performIterations(false, null);
+
+        assertEquals(expected, this.performIterations(true, null));
+        assertFalse(expected.contains("idle"));
+    }
+
+    @Test
+    public void testFrozenSchedulerExecutesTheSameProcessesConcurrently() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<String> expected = this.performIterations(false, null);
+            List<String> actual = this.performIterations(true, executor);
+
+            // the sinks run concurrently within each sub-iteration
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChannelWithoutInPortsIsRejected() {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createSharedChannel("dead end", String.class, false, false);
+
+        scheduler.addProcess(this.createProcess("producer", new ArrayList<String>()), channel.createOutPort());
+
+        try {
+            scheduler.freeze();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("'dead end'"));
+            assertFalse(scheduler.isFrozen());
+            return;
+        }
+
+        fail("Expected IllegalStateException not thrown !");
+    }
+}
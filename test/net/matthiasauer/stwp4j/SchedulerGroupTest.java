@@ -0,0 +1,125 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.matthiasauer.stwp4j.TestUtils.TestUtilsExecutable;
+
+public class SchedulerGroupTest {
+
+    private LightweightProcess createProducer(final ChannelOutPort<Integer> outPort, final List<Thread> threads) {
+        return new LightweightProcess() {
+            int iteration = 0;
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    threads.add(Thread.currentThread());
+                    outPort.offer(this.iteration++);
+                    this.produce = false;
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createConsumer(final ChannelInPort<Integer> inPort, final List<Integer> received,
+            final List<Thread> threads) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                threads.add(Thread.currentThread());
+                inPort.drainTo(received);
+            }
+        };
+    }
+
+    @Test
+    public void testBridgeForwardsMessagesToTheNextIteration() {
+        SchedulerGroup group = new SchedulerGroup(2);
+        Bridge<Integer> bridge = group.createMultiplexBridge("bridge", Integer.class, group.getPartition(0),
+                group.getPartition(1), true, false);
+        ChannelOutPort<Integer> outPort = bridge.getSource().createOutPort();
+        ChannelInPort<Integer> inPort = bridge.getTarget().createInPort();
+        List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        List<Thread> producerThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        List<Thread> consumerThreads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        group.getPartition(0).addProcess(this.createProducer(outPort, producerThreads), outPort);
+        group.getPartition(1).addProcess(this.createConsumer(inPort, received, consumerThreads), inPort);
+
+        try {
+            group.performIteration();
+            assertEquals(Collections.<Integer> emptyList(), received);
+
+            group.performIteration();
+            assertEquals(Arrays.asList(0), received);
+
+            group.performIteration();
+            assertEquals(Arrays.asList(0, 1), received);
+        } finally {
+            group.shutdown();
+        }
+
+        // each partition stays on its own thread
+        assertEquals(1, new HashSet<Thread>(producerThreads).size());
+        assertEquals(1, new HashSet<Thread>(consumerThreads).size());
+        assertNotSame(producerThreads.get(0), consumerThreads.get(0));
+    }
+
+    @Test
+    public void testBridgeOnlyBetweenPartitions() {
+        final SchedulerGroup group = new SchedulerGroup(1);
+
+        try {
+            TestUtils.expectInterruptedExceptionToContain(new TestUtilsExecutable() {
+                @Override
+                public void execute() {
+                    group.createSharedBridge("bridge", Integer.class, group.getPartition(0), new Scheduler(), false,
+                            false);
+                }
+            }, "scheduler is not a partition of the group");
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectedBridgeLeavesNoChannel() {
+        final SchedulerGroup group = new SchedulerGroup(2);
+        final Scheduler source = group.getPartition(0);
+        SchedulerMetrics metrics = source.enableMetrics();
+
+        try {
+            TestUtils.expectInterruptedExceptionToContain(new TestUtilsExecutable() {
+                @Override
+                public void execute() {
+                    group.createMultiplexBridge("bridge", Integer.class, source, new Scheduler(), false, false);
+                }
+            }, "scheduler is not a partition of the group");
+            TestUtils.expectInterruptedExceptionToContain(new TestUtilsExecutable() {
+                @Override
+                public void execute() {
+                    group.createSharedBridge("bridge", Integer.class, source, source, false, false);
+                }
+            }, "a bridge has to connect different partitions");
+
+            assertEquals(0, metrics.getChannelMetrics().size());
+        } finally {
+            group.shutdown();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SchedulerMessagePoolTest {
+
+    static class Event {
+        int value;
+    }
+
+    private static final MessageFactory<Event> FACTORY = new MessageFactory<Event>() {
+        @Override
+        public Event create() {
+            return new Event();
+        }
+    };
+
+    private LightweightProcess createProducer(final ChannelOutPort<Event> outPort, final MessagePool<Event> pool,
+            final int messagesPerIteration) {
+        return new LightweightProcess() {
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    for (int i = 0; i < messagesPerIteration; i++) {
+                        Event event = pool.acquire();
+                        event.value = i;
+                        outPort.offer(event);
+                    }
+
+                    this.produce = false;
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createConsumer(final ChannelInPort<Event> inPort, final int[] sum) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                Event event = null;
+
+                while ((event = inPort.poll()) != null) {
+                    sum[0] += event.value;
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testConsumedMessagesAreRecycled() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Event> channel = scheduler.createSharedChannel("events", Event.class, true, false, FACTORY);
+        MessagePool<Event> pool = channel.getMessagePool();
+        ChannelOutPort<Event> outPort = channel.createOutPort();
+        ChannelInPort<Event> inPort = channel.createInPort();
+        int[] sum = new int[1];
+
+        scheduler.addProcess(this.createProducer(outPort, pool, 10), outPort);
+        scheduler.addProcess(this.createConsumer(inPort, sum), inPort);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.performIteration();
+        }
+
+        assertEquals(100 * 45, sum[0]);
+        assertEquals("only the first iteration creates messages", 10, pool.getCreated());
+        assertEquals(10, pool.getAvailable());
+    }
+
+    @Test
+    public void testMessagesAreOnlyRecycledOnceAllInPortsConsumedThem() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Event> channel = scheduler.createMultiplexChannel("events", Event.class, false, false, FACTORY);
+        MessagePool<Event> pool = channel.getMessagePool();
+        ChannelOutPort<Event> outPort = channel.createOutPort();
+        ChannelInPort<Event> fast = channel.createInPort();
+        ChannelInPort<Event> slow = channel.createInPort();
+
+        Event first = pool.acquire();
+        Event second = pool.acquire();
+        outPort.offer(first);
+        outPort.offer(second);
+        scheduler.performIteration();
+
+        assertSame(first, fast.poll());
+        assertSame(second, fast.poll());
+        assertSame(first, slow.poll());
+        scheduler.performIteration();
+
+        // the second message is still waiting in the slow InPort
+        assertEquals(1, pool.getAvailable());
+        assertSame(first, pool.acquire());
+
+        assertSame(second, slow.poll());
+        scheduler.performIteration();
+        assertSame(second, pool.acquire());
+    }
+}
@@ -0,0 +1,137 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class SchedulerMetricsTest {
+
+    private Scheduler createScheduler(final int messagesPerIteration) {
+        Scheduler scheduler = new Scheduler();
+        Channel<String> channel = scheduler.createMultiplexChannel("channel", String.class, true, false);
+        final ChannelOutPort<String> outPort = channel.createOutPort();
+        final ChannelInPort<String> inPort = channel.createInPort();
+
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                for (int i = 0; i < messagesPerIteration; i++) {
+                    outPort.offer("message");
+                }
+            }
+
+            @Override
+            protected void execute() {
+            }
+
+            @Override
+            public String toString() {
+                return "producer";
+            }
+        }, outPort);
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                while (inPort.poll() != null);
+            }
+
+            @Override
+            public String toString() {
+                return "consumer";
+            }
+        }, inPort);
+
+        return scheduler;
+    }
+
+    @Test
+    public void testMetricsAreDisabledByDefault() {
+        Scheduler scheduler = this.createScheduler(1);
+        scheduler.performIteration();
+
+        assertNull("metrics must not be collected by default", scheduler.getMetrics());
+    }
+
+    @Test
+    public void testMetricsAreCollected() {
+        Scheduler scheduler = this.createScheduler(5);
+        SchedulerMetrics metrics = scheduler.enableMetrics();
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.performIteration();
+        }
+
+        assertEquals("incorrect number of iterations", 3, metrics.getIterations());
+        assertEquals("incorrect number of sub-iterations", 3, metrics.getSubIterations());
+        assertEquals("incorrect number of forwarded messages", 15,
+                metrics.getChannelMetrics().get(0).getForwardedMessages());
+        assertEquals("the producer has no InPort - it is executed in each sub-iteration", Long.valueOf(3),
+                metrics.getProcessExecutions().get("producer"));
+        assertEquals("the consumer is only executed when it received messages", Long.valueOf(3),
+                metrics.getProcessExecutions().get("consumer"));
+        assertTrue("execute time has to be measured", metrics.getProcessExecuteTimes().get("consumer") > 0);
+    }
+
+    @Test
+    public void testEqualNamesDontOverwriteEachOther() {
+        Scheduler scheduler = new Scheduler();
+        SchedulerMetrics metrics = scheduler.enableMetrics();
+
+        for (int i = 0; i < 2; i++) {
+            final Channel<String> channel = scheduler.createSharedChannel("channel", String.class, true, false);
+            final ChannelOutPort<String> outPort = channel.createOutPort();
+            final ChannelInPort<String> inPort = channel.createInPort();
+            final int messages = i + 1;
+
+            scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void preIteration() {
+                    for (int j = 0; j < messages; j++) {
+                        outPort.offer("message");
+                    }
+                }
+
+                @Override
+                protected void execute() {
+                    while (inPort.poll() != null);
+                }
+
+                @Override
+                public String toString() {
+                    return "process";
+                }
+            }, outPort, inPort);
+        }
+
+        scheduler.performIteration();
+
+        assertEquals(Long.valueOf(1), metrics.getChannelForwardedMessages().get("channel"));
+        assertEquals(Long.valueOf(2), metrics.getChannelForwardedMessages().get("channel#2"));
+        assertEquals(2, metrics.getChannelQueueDepths().size());
+        assertEquals(2, metrics.getProcessExecutions().size());
+        assertTrue(metrics.getProcessExecutions().containsKey("process#2"));
+        assertEquals(2, metrics.getProcessExecuteTimes().size());
+    }
+
+    @Test
+    public void testMetricsAreAvailableViaJmx() throws Exception {
+        Scheduler scheduler = this.createScheduler(2);
+        ObjectName name = scheduler.registerMetricsMBean();
+
+        try {
+            scheduler.performIteration();
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals("incorrect number of iterations", 1L, server.getAttribute(name, "Iterations"));
+        } finally {
+            scheduler.unregisterMetricsMBean();
+        }
+    }
+}
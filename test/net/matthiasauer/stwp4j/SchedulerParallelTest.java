@@ -0,0 +1,166 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchedulerParallelTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        this.executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    private LightweightProcess createProducer(final ChannelOutPort<Integer> outPort, final int messages) {
+        return new LightweightProcess() {
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    for (int i = 0; i < messages; i++) {
+                        outPort.offer(i);
+                    }
+                }
+
+                this.produce = false;
+            }
+        };
+    }
+
+    private LightweightProcess createConsumer(final ChannelInPort<Integer> inPort, final AtomicInteger received) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                while (inPort.poll() != null) {
+                    received.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testMultiplexChannelIsDeliveredToEveryConsumer() {
+        Scheduler scheduler = new Scheduler(this.executor);
+        Channel<Integer> channel = scheduler.createMultiplexChannel("numbers", Integer.class, true, false);
+        AtomicInteger received = new AtomicInteger();
+
+        for (int i = 0; i < 8; i++) {
+            scheduler.addProcess(this.createProducer(channel.createOutPort(), 1000));
+            scheduler.addProcess(this.createConsumer(channel.createInPort(), received));
+        }
+
+        scheduler.performIteration();
+
+        assertEquals("every consumer has to receive every message", 8 * 8 * 1000, received.get());
+    }
+
+    @Test
+    public void testSharedChannelDeliversEachMessageOnce() {
+        Scheduler scheduler = new Scheduler(this.executor);
+        Channel<Integer> channel = scheduler.createSharedChannel("numbers", Integer.class, true, false);
+        AtomicInteger received = new AtomicInteger();
+
+        for (int i = 0; i < 8; i++) {
+            scheduler.addProcess(this.createProducer(channel.createOutPort(), 1000));
+            scheduler.addProcess(this.createConsumer(channel.createInPort(), received));
+        }
+
+        for (int iteration = 1; iteration <= 10; iteration++) {
+            scheduler.performIteration();
+
+            assertEquals("every message has to be received exactly once", iteration * 8 * 1000, received.get());
+        }
+    }
+
+    private LightweightProcess createHandlingConsumer(final ChannelInPort<Integer> inPort,
+            final CountDownLatch handling, final AtomicInteger received, final AtomicInteger timeouts) {
+        return new LightweightProcess() {
+            boolean first = true;
+
+            @Override
+            protected void execute() {
+                received.addAndGet(inPort.forEach(new MessageHandler<Integer>() {
+                    @Override
+                    public void handle(Integer message) {
+                        if (first) {
+                            first = false;
+                            handling.countDown();
+
+                            try {
+                                // both consumers have to handle messages at
+                                // the same time
+                                if (!handling.await(5, TimeUnit.SECONDS)) {
+                                    timeouts.incrementAndGet();
+                                }
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                }));
+            }
+        };
+    }
+
+    @Test
+    public void testSharedConsumersHandleMessagesConcurrently() {
+        Scheduler scheduler = new Scheduler(this.executor);
+        Channel<Integer> channel = scheduler.createSharedChannel("shared", Integer.class, true, false);
+        ChannelOutPort<Integer> outPort = channel.createOutPort();
+        ChannelInPort<Integer> firstInPort = channel.createInPort();
+        ChannelInPort<Integer> secondInPort = channel.createInPort();
+        CountDownLatch handling = new CountDownLatch(2);
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+
+        scheduler.addProcess(this.createProducer(outPort, 100), outPort);
+        scheduler.addProcess(this.createHandlingConsumer(firstInPort, handling, received, timeouts), firstInPort);
+        scheduler.addProcess(this.createHandlingConsumer(secondInPort, handling, received, timeouts),
+                secondInPort);
+        scheduler.performIteration();
+
+        assertEquals(0, timeouts.get());
+        assertEquals(100, received.get());
+    }
+
+    @Test
+    public void testExceptionOfProcessIsRethrown() {
+        Scheduler scheduler = new Scheduler(this.executor);
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void execute() {
+                throw new IllegalArgumentException("broken process");
+            }
+        });
+
+        try {
+            scheduler.performIteration();
+        } catch (IllegalArgumentException exception) {
+            assertEquals("message of the thrown exception is incorrect !", "broken process", exception.getMessage());
+            return;
+        }
+
+        fail("Expected IllegalArgumentException not thrown !");
+    }
+}
@@ -0,0 +1,132 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SchedulerPartitionedChannelTest {
+
+    static class Event {
+        final int key;
+        final int sequence;
+
+        Event(int key, int sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final KeyExtractor<Event> KEY = new KeyExtractor<Event>() {
+        @Override
+        public Object getKey(Event message) {
+            return message.key;
+        }
+    };
+
+    private LightweightProcess createConsumer(final ChannelInPort<Event> inPort, final int consumer,
+            final Map<Integer, Integer> owners, final Map<Integer, Integer> lastSequences,
+            final AtomicInteger executions) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                executions.incrementAndGet();
+                Event event = null;
+
+                while ((event = inPort.poll()) != null) {
+                    Integer owner = owners.put(event.key, consumer);
+                    assertTrue("key handled by several InPorts", (owner == null) || (owner == consumer));
+
+                    Integer last = lastSequences.put(event.key, event.sequence);
+                    assertTrue("messages of a key out of order", (last == null) || (last < event.sequence));
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testKeysAreRoutedConsistently() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Event> channel = scheduler.createPartitionedChannel("events", Event.class, true, false, KEY);
+        ChannelOutPort<Event> outPort = channel.createOutPort();
+        Map<Integer, Integer> owners = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> lastSequences = new HashMap<Integer, Integer>();
+        AtomicInteger executions = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            ChannelInPort<Event> inPort = channel.createInPort();
+            scheduler.addProcess(this.createConsumer(inPort, i, owners, lastSequences, executions), inPort);
+        }
+
+        for (int iteration = 0; iteration < 10; iteration++) {
+            for (int i = 0; i < 100; i++) {
+                outPort.offer(new Event(i % 17, (iteration * 100) + i));
+            }
+
+            scheduler.performIteration();
+        }
+
+        assertEquals(17, owners.size());
+    }
+
+    @Test
+    public void testOnlyInPortsWithMessagesAreWokenUp() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Event> channel = scheduler.createPartitionedChannel("events", Event.class, true, false, KEY);
+        ChannelOutPort<Event> outPort = channel.createOutPort();
+        List<AtomicInteger> executions = new ArrayList<AtomicInteger>();
+        Map<Integer, Integer> owners = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> lastSequences = new HashMap<Integer, Integer>();
+
+        for (int i = 0; i < 4; i++) {
+            ChannelInPort<Event> inPort = channel.createInPort();
+            AtomicInteger counter = new AtomicInteger();
+            executions.add(counter);
+            scheduler.addProcess(this.createConsumer(inPort, i, owners, lastSequences, counter), inPort);
+        }
+
+        outPort.offer(new Event(42, 0));
+        scheduler.performIteration();
+
+        int partition = Channel.partitionOf(42, 4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals((i == partition) ? 1 : 0, executions.get(i).get());
+        }
+    }
+
+    @Test
+    public void testCapacityCoversAllPartitions() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Event> channel = scheduler.createPartitionedChannel("events", Event.class, false, false, KEY, 10);
+        ChannelOutPort<Event> outPort = channel.createOutPort();
+        List<ChannelInPort<Event>> inPorts = new ArrayList<ChannelInPort<Event>>();
+
+        for (int i = 0; i < 3; i++) {
+            inPorts.add(channel.createInPort());
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue("channel is not full yet", outPort.offer(new Event(i, i)));
+        }
+        assertFalse("channel is full", outPort.offer(new Event(10, 10)));
+
+        // the messages are now spread over the partitions - which still count
+        scheduler.performIteration();
+        for (ChannelInPort<Event> inPort : inPorts) {
+            assertTrue(inPort.hasMessages());
+        }
+        assertFalse("channel is full", outPort.offer(new Event(10, 10)));
+
+        inPorts.get(0).poll();
+        scheduler.performIteration();
+        assertTrue("channel is not full anymore", outPort.offer(new Event(10, 10)));
+        assertFalse("channel is full", outPort.offer(new Event(11, 11)));
+    }
+}
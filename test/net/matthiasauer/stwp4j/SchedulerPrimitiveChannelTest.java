@@ -0,0 +1,158 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SchedulerPrimitiveChannelTest {
+
+    @Test
+    public void testIntMultiplexChannel() {
+        Scheduler scheduler = new Scheduler();
+        IntChannel channel = scheduler.createMultiplexIntChannel("ints", true, false);
+        final IntChannelOutPort outPort = channel.createOutPort();
+        final AtomicLong sum1 = new AtomicLong();
+        final AtomicLong sum2 = new AtomicLong();
+
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                for (int i = 1; i <= 100; i++) {
+                    outPort.offer(i);
+                }
+            }
+
+            @Override
+            protected void execute() {
+            }
+        });
+        for (final AtomicLong sum : new AtomicLong[] { sum1, sum2 }) {
+            final IntChannelInPort inPort = channel.createInPort();
+
+            scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    while (!inPort.isEmpty()) {
+                        sum.addAndGet(inPort.poll());
+                    }
+                }
+            }, inPort);
+        }
+
+        scheduler.performIteration();
+
+        assertEquals("each InPort has to receive all messages", 5050, sum1.get());
+        assertEquals("each InPort has to receive all messages", 5050, sum2.get());
+    }
+
+    @Test
+    public void testLongSharedChannel() {
+        Scheduler scheduler = new Scheduler();
+        LongChannel channel = scheduler.createSharedLongChannel("longs", true, false);
+        final LongChannelOutPort outPort = channel.createOutPort();
+        final AtomicLong sum = new AtomicLong();
+
+        scheduler.addProcess(new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                outPort.offer(Long.MAX_VALUE / 2);
+                outPort.offer(1);
+            }
+
+            @Override
+            protected void execute() {
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            final LongChannelInPort inPort = channel.createInPort();
+
+            scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void execute() {
+                    while (!inPort.isEmpty()) {
+                        sum.addAndGet(inPort.poll());
+                    }
+                }
+            });
+        }
+
+        scheduler.performIteration();
+
+        assertEquals("each message has to be received exactly once", Long.MAX_VALUE / 2 + 1, sum.get());
+    }
+
+    @Test
+    public void testIntSharedChannelPolledConcurrently() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Scheduler scheduler = new Scheduler(executor);
+            IntChannel channel = scheduler.createSharedIntChannel("ints", true, false);
+            final IntChannelOutPort outPort = channel.createOutPort();
+            final AtomicLong sum = new AtomicLong();
+
+            scheduler.addProcess(new LightweightProcess() {
+                @Override
+                protected void preIteration() {
+                    for (int i = 1; i <= 10000; i++) {
+                        outPort.offer(i);
+                    }
+                }
+
+                @Override
+                protected void execute() {
+                }
+            });
+            for (int i = 0; i < 4; i++) {
+                final IntChannelInPort inPort = channel.createInPort();
+
+                scheduler.addProcess(new LightweightProcess() {
+                    @Override
+                    protected void execute() {
+                        int message;
+
+                        // checks and takes the message at once
+                        while ((message = inPort.poll(-1)) != -1) {
+                            sum.addAndGet(message);
+                        }
+                    }
+                }, inPort);
+            }
+
+            scheduler.performIteration();
+
+            assertEquals("each message has to be received exactly once", 50005000, sum.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDoubleChannelPollOnEmptyInPort() {
+        Scheduler scheduler = new Scheduler();
+        DoubleChannel channel = scheduler.createMultiplexDoubleChannel("doubles", false, false);
+        DoubleChannelOutPort outPort = channel.createOutPort();
+        DoubleChannelInPort inPort = channel.createInPort();
+
+        outPort.offer(0.5);
+        scheduler.performIteration();
+
+        assertEquals("incorrect message type", double.class, inPort.getMessageType());
+        assertEquals("incorrect message", 0.5, inPort.poll(), 0.0);
+        assertEquals("empty value expected", -1.0, inPort.poll(-1.0), 0.0);
+
+        try {
+            inPort.poll();
+        } catch (NoSuchElementException e) {
+            return;
+        }
+
+        fail("Expected NoSuchElementException not thrown !");
+    }
+}
@@ -0,0 +1,88 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SchedulerProcessOrderingTest {
+
+    private LightweightProcess createProcess(final String name, final List<String> order) {
+        return new LightweightProcess() {
+            @Override
+            protected void preIteration() {
+                order.add(name);
+            }
+
+            @Override
+            protected void execute() {
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    // consumer <- middle <- producer, added in reverse order
+    private List<String> performIterationOfChain(ProcessOrdering ordering) {
+        Scheduler scheduler = new Scheduler();
+        List<String> order = new ArrayList<String>();
+        Channel<String> first = scheduler.createSharedChannel("first", String.class, false, false);
+        Channel<String> second = scheduler.createSharedChannel("second", String.class, false, false);
+        ChannelOutPort<String> producerOutPort = first.createOutPort();
+        ChannelInPort<String> middleInPort = first.createInPort();
+        ChannelOutPort<String> middleOutPort = second.createOutPort();
+        ChannelInPort<String> consumerInPort = second.createInPort();
+
+        scheduler.setProcessOrdering(ordering);
+        scheduler.addProcess(this.createProcess("consumer", order), consumerInPort);
+        scheduler.addProcess(this.createProcess("middle", order), middleInPort, middleOutPort);
+        scheduler.addProcess(this.createProcess("producer", order), producerOutPort);
+        scheduler.performIteration();
+
+        return order;
+    }
+
+    @Test
+    public void testRegistrationOrdering() {
+        assertEquals(Arrays.asList("consumer", "middle", "producer"),
+                this.performIterationOfChain(ProcessOrdering.Registration));
+    }
+
+    @Test
+    public void testTopologicalOrdering() {
+        assertEquals(Arrays.asList("producer", "middle", "consumer"),
+                this.performIterationOfChain(ProcessOrdering.Topological));
+    }
+
+    @Test
+    public void testTopologicalOrderingWithCycle() {
+        Scheduler scheduler = new Scheduler();
+        List<String> order = new ArrayList<String>();
+        Channel<String> forth = scheduler.createSharedChannel("forth", String.class, false, false);
+        Channel<String> back = scheduler.createSharedChannel("back", String.class, false, false);
+        Channel<String> out = scheduler.createSharedChannel("out", String.class, false, false);
+        ChannelOutPort<String> aForth = forth.createOutPort();
+        ChannelInPort<String> aBack = back.createInPort();
+        ChannelInPort<String> bForth = forth.createInPort();
+        ChannelOutPort<String> bBack = back.createOutPort();
+        ChannelOutPort<String> bOut = out.createOutPort();
+        ChannelInPort<String> sinkIn = out.createInPort();
+
+        scheduler.setProcessOrdering(ProcessOrdering.Topological);
+        scheduler.addProcess(this.createProcess("sink", order), sinkIn);
+        scheduler.addProcess(this.createProcess("independent", order));
+        scheduler.addProcess(this.createProcess("b", order), bForth, bBack, bOut);
+        scheduler.addProcess(this.createProcess("a", order), aForth, aBack);
+        scheduler.performIteration();
+
+        // the cycle keeps the order in which its processes were added and
+        // is executed before the sink
+        assertEquals(Arrays.asList("independent", "b", "a", "sink"), order);
+    }
+}
@@ -0,0 +1,111 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class SchedulerRecordChannelTest {
+    private final RecordLayout layout = new RecordLayout();
+    private final int timestamp = this.layout.addLong();
+    private final int sensor = this.layout.addInt();
+    private final int value = this.layout.addDouble();
+
+    private LightweightProcess createProducer(final RecordChannelOutPort outPort, final int records) {
+        return new LightweightProcess() {
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    for (int i = 0; i < records; i++) {
+                        outPort.append()
+                                .putLong(SchedulerRecordChannelTest.this.timestamp, i)
+                                .putInt(SchedulerRecordChannelTest.this.sensor, i % 7)
+                                .putDouble(SchedulerRecordChannelTest.this.value, i * 0.5);
+                    }
+
+                    this.produce = false;
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createConsumer(final RecordChannelInPort inPort, final long[] next) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                RecordReader record = null;
+
+                while ((record = inPort.poll()) != null) {
+                    long expected = next[0]++;
+                    assertEquals(expected, record.getLong(SchedulerRecordChannelTest.this.timestamp));
+                    assertEquals(expected % 7, record.getInt(SchedulerRecordChannelTest.this.sensor));
+                    assertEquals(expected * 0.5, record.getDouble(SchedulerRecordChannelTest.this.value), 0);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testLayout() {
+        assertEquals(0, this.timestamp);
+        assertEquals(8, this.sensor);
+        assertEquals(16, this.value);
+        assertEquals(24, this.layout.getSize());
+    }
+
+    @Test
+    public void testSharedRecordChannel() {
+        Scheduler scheduler = new Scheduler();
+        RecordChannel channel = scheduler.createSharedRecordChannel("records", this.layout, true, false);
+        RecordChannelOutPort outPort = channel.createOutPort();
+        RecordChannelInPort inPort = channel.createInPort();
+        long[] next = new long[1];
+
+        scheduler.addProcess(this.createProducer(outPort, 1000), outPort);
+        scheduler.addProcess(this.createConsumer(inPort, next), inPort);
+        scheduler.performIteration();
+
+        assertEquals(1000, next[0]);
+        assertNull(inPort.poll());
+    }
+
+    @Test
+    public void testMultiplexRecordChannel() {
+        Scheduler scheduler = new Scheduler();
+        RecordChannel channel = scheduler.createMultiplexRecordChannel("records", this.layout, true, false);
+        RecordChannelOutPort outPort = channel.createOutPort();
+        RecordChannelInPort first = channel.createInPort();
+        RecordChannelInPort second = channel.createInPort();
+        long[] firstNext = new long[1];
+        long[] secondNext = new long[1];
+
+        scheduler.addProcess(this.createProducer(outPort, 100), outPort);
+        scheduler.addProcess(this.createConsumer(first, firstNext), first);
+        scheduler.addProcess(this.createConsumer(second, secondNext), second);
+        scheduler.performIteration();
+
+        assertEquals(100, firstNext[0]);
+        assertEquals(100, secondNext[0]);
+    }
+
+    @Test
+    public void testLayoutCantBeChangedOnceUsed() {
+        new Scheduler().createSharedRecordChannel("records", this.layout, false, true);
+
+        try {
+            this.layout.addInt();
+        } catch (IllegalStateException e) {
+            return;
+        }
+
+        fail("Expected IllegalStateException not thrown !");
+    }
+}
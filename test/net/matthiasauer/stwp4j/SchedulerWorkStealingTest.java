@@ -0,0 +1,169 @@
+package net.matthiasauer.stwp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SchedulerWorkStealingTest {
+
+    private LightweightProcess createProducer(final ChannelOutPort<Integer> outPort, final int messages) {
+        return new LightweightProcess() {
+            boolean produce;
+
+            @Override
+            protected void preIteration() {
+                this.produce = true;
+            }
+
+            @Override
+            protected void execute() {
+                if (this.produce) {
+                    for (int i = 0; i < messages; i++) {
+                        outPort.offer(i);
+                    }
+
+                    this.produce = false;
+                }
+            }
+        };
+    }
+
+    private LightweightProcess createWorker(final ChannelInPort<Integer> inPort, final List<Integer> handled,
+            final AtomicInteger counter) {
+        return new LightweightProcess() {
+            @Override
+            protected void execute() {
+                Integer message = null;
+
+                while ((message = inPort.poll()) != null) {
+                    handled.add(message);
+                    counter.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testMessagesAreSpreadAcrossInPorts() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createWorkStealingChannel("work", Integer.class, true, false);
+        ChannelOutPort<Integer> outPort = channel.createOutPort();
+        List<ChannelInPort<Integer>> inPorts = new ArrayList<ChannelInPort<Integer>>();
+
+        for (int i = 0; i < 3; i++) {
+            inPorts.add(channel.createInPort());
+        }
+
+        for (int i = 0; i < 10; i++) {
+            outPort.offer(i);
+        }
+        channel.forwardMessages();
+
+        assertEquals(4, inPorts.get(0).getBuffer().size());
+        assertEquals(3, inPorts.get(1).getBuffer().size());
+        assertEquals(3, inPorts.get(2).getBuffer().size());
+        assertEquals(Integer.valueOf(0), inPorts.get(0).peek());
+        assertEquals(Integer.valueOf(4), inPorts.get(1).peek());
+        assertEquals(Integer.valueOf(7), inPorts.get(2).peek());
+
+        // the InPorts take turns to receive the remainder
+        outPort.offer(10);
+        channel.forwardMessages();
+        assertEquals(4, inPorts.get(1).getBuffer().size());
+    }
+
+    @Test
+    public void testIdleInPortStealsHalf() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createWorkStealingChannel("work", Integer.class, false, false);
+        ChannelOutPort<Integer> outPort = channel.createOutPort();
+        ChannelInPort<Integer> first = channel.createInPort();
+        ChannelInPort<Integer> second = channel.createInPort();
+
+        for (int i = 0; i < 8; i++) {
+            outPort.offer(i);
+        }
+        channel.forwardMessages();
+
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(4, second.drainTo(drained, 4));
+
+        // the second InPort takes the newest half of the first one
+        assertEquals(Integer.valueOf(2), second.poll());
+        assertEquals(2, first.getBuffer().size());
+        assertEquals(Integer.valueOf(0), first.poll());
+    }
+
+    @Test
+    public void testAllMessagesHandledOnceWithConcurrentWorkers() {
+        final int workers = 4;
+        final int messages = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+        try {
+            Scheduler scheduler = new Scheduler(executor);
+            Channel<Integer> channel = scheduler.createWorkStealingChannel("work", Integer.class, true, false);
+            ChannelOutPort<Integer> outPort = channel.createOutPort();
+            List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+            List<AtomicInteger> counters = new ArrayList<AtomicInteger>();
+
+            scheduler.addProcess(this.createProducer(outPort, messages), outPort);
+            for (int i = 0; i < workers; i++) {
+                ChannelInPort<Integer> inPort = channel.createInPort();
+                AtomicInteger counter = new AtomicInteger();
+                counters.add(counter);
+                scheduler.addProcess(this.createWorker(inPort, handled, counter), inPort);
+            }
+
+            scheduler.performIteration();
+
+            assertEquals(messages, handled.size());
+            Collections.sort(handled);
+            for (int i = 0; i < messages; i++) {
+                assertEquals(Integer.valueOf(i), handled.get(i));
+            }
+
+            int total = 0;
+            for (AtomicInteger counter : counters) {
+                total += counter.get();
+            }
+            assertEquals(messages, total);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCapacityCoversAllInPorts() {
+        Scheduler scheduler = new Scheduler();
+        Channel<Integer> channel = scheduler.createWorkStealingChannel("bounded", Integer.class, false, false, 10);
+        ChannelOutPort<Integer> outPort = channel.createOutPort();
+        ChannelInPort<Integer> first = channel.createInPort();
+        ChannelInPort<Integer> second = channel.createInPort();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue("channel is not full yet", outPort.offer(i));
+        }
+        assertFalse("channel is full", outPort.offer(10));
+
+        // the messages are now spread over both InPorts - which still count
+        scheduler.performIteration();
+        assertTrue(first.hasMessages());
+        assertTrue(second.hasMessages());
+        assertFalse("channel is full", outPort.offer(10));
+
+        first.poll();
+        scheduler.performIteration();
+        assertTrue("channel is not full anymore", outPort.offer(10));
+        assertFalse("channel is full", outPort.offer(11));
+    }
+}